@@ -14,9 +14,11 @@ public class Game {
 	//////////////// PARAMETERS /////////////////////////////////
 	
 	static final Scene FIRST_SCENE = new game.scenes.SceneTitle();				// The first scene to be launched
-	public static final WindowManager WINDOW = new WindowManager(640, 480, "Test", "System/S2DIcon.png");	// The Graphic Manager
+	public static final WindowManager WINDOW = java.awt.GraphicsEnvironment.isHeadless()
+			? WindowManager.createOffscreen(640, 480, null)
+			: new WindowManager(640, 480, "Test", "System/S2DIcon.png");		// The Graphic Manager (offscreen without any display)
 	//public static final EventManager EVENTS = new EventManager();				// The Event Manager
-	public static final DataManager DATA = new DataManager();				// The Data Manager
+	public static final DataManager DATA = new DataManager(WINDOW);			// The Data Manager
 	public static final SceneManager SCENE = new SceneManager();				// The Scene Manager
 	
 	/////////////////////////////////////////////////////////////
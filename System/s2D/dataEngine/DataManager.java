@@ -3,7 +3,10 @@ package s2D.dataEngine;
 import java.io.*;
 import java.util.*;
 import java.awt.*;
+import java.awt.image.*;
 import javax.imageio.*;
+import s2D.metricsEngine.*;
+import s2D.windowEngine.*;
 
 /**
  * Specifies the DataManager. <br/>
@@ -29,9 +32,26 @@ public class DataManager {
 	//////////////////////////////////////////////////////
 	
 	private Hashtable<String, Image> cache;
+	private Hashtable<String, Long> conversionTimes;	// The time spent converting each cached image (in ns)
+	private Hashtable<String, Long> residentBytes;		// The nb of bytes used by each cached image
+	private WindowManager window;				// The window the images are converted for (null if none)
 	
+	/**
+	 * Build a Data Manager converting the images to the format of the default screen.
+	 */
 	public DataManager() {
+		this(null);
+	}
+	
+	/**
+	 * Build a Data Manager converting the images to the format of the screen where the window is.
+	 * @param window The window (null for the default screen)
+	 */
+	public DataManager(WindowManager window) {
+		this.window = window;
 		cache = new Hashtable<String, Image>();
+		conversionTimes = new Hashtable<String, Long>();
+		residentBytes = new Hashtable<String, Long>();
 	}
 	
 	private <T extends Data> String getDataClass(Class<T> dataClass) {
@@ -42,11 +62,13 @@ public class DataManager {
 	//////////////////////////////////////////////////////
 	
 	/**
-	 * Adds the image to the cache if it isn't still in.
+	 * Adds the image to the cache if it isn't still in.<br/>
+	 * The image is converted once to the format of the screen, so that it doesn't need any conversion when drawn.
 	 * @param path The path of the image from the Graphics directory
 	 */
 	public void addToCache(String path) {
 		if (!cache.containsKey(path)) {
+			long load = Metrics.tic();
 			File file = new File("../Graphics/" + path);
 			Image loadedImage = null;	
 			try {
@@ -60,8 +82,45 @@ public class DataManager {
 				width = loadedImage.getWidth(null);
 				height = loadedImage.getHeight(null);
 			}
-			cache.put(path, loadedImage);
+			long tic = System.nanoTime();
+			BufferedImage image = toCompatibleImage((BufferedImage) loadedImage);
+			conversionTimes.put(path, System.nanoTime() - tic);
+			residentBytes.put(path, (long) width * height * image.getColorModel().getPixelSize() / 8);
+			cache.put(path, image);
+			Metrics.toc(Phase.DATA_LOAD, load);
+		}
+	}
+	
+	/**
+	 * Convert an image to the format of the screen, keeping its transparency mode (opaque, bitmask or translucent).<br/>
+	 * The screen is the one where the window is, or the default one if there is no window on the screen.
+	 * @param image The image to convert
+	 */
+	private BufferedImage toCompatibleImage(BufferedImage image) {
+		int transparency = image.getColorModel().getTransparency();
+		BufferedImage result;
+		if (GraphicsEnvironment.isHeadless()) {
+			int type = (transparency == Transparency.OPAQUE) ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+			if (image.getType() == type) {
+				return image;
+			}
+			result = new BufferedImage(image.getWidth(), image.getHeight(), type);
+		} else {
+			GraphicsConfiguration gc = (window != null) ? window.getGraphicsConfiguration() : null;
+			if (gc == null) {
+				gc = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+			}
+			if (image.getColorModel().equals(gc.getColorModel(transparency))) {
+				return image;
+			}
+			result = gc.createCompatibleImage(image.getWidth(), image.getHeight(), transparency);
 		}
+		Metrics.count(Counter.RASTER_BYTES, (long) result.getWidth() * result.getHeight() * result.getColorModel().getPixelSize() / 8);
+		Graphics2D g = result.createGraphics();
+		g.setComposite(AlphaComposite.Src);
+		g.drawImage(image, 0, 0, null);
+		g.dispose();
+		return result;
 	}
 	
 	/**
@@ -73,11 +132,42 @@ public class DataManager {
 		return cache.get(path);
 	}
 	
+	/**
+	 * Get the time spent converting a cached image to the format of the screen (in ns).
+	 * @param path The path of the image from the Graphics directory
+	 */
+	public long getConversionTime(String path) {
+		Long time = conversionTimes.get(path);
+		return (time == null) ? 0 : time;
+	}
+	
+	/**
+	 * Get the nb of bytes used by a cached image.
+	 * @param path The path of the image from the Graphics directory
+	 */
+	public long getResidentBytes(String path) {
+		Long bytes = residentBytes.get(path);
+		return (bytes == null) ? 0 : bytes;
+	}
+	
+	/**
+	 * Get the nb of bytes used by the whole cache.
+	 */
+	public long getCacheBytes() {
+		long result = 0;
+		for (long bytes : residentBytes.values()) {
+			result += bytes;
+		}
+		return result;
+	}
+	
 	/**
 	 * Clear the cache.
 	 */
 	public void clearCache() {
 		cache.clear();
+		conversionTimes.clear();
+		residentBytes.clear();
 	}
 	
 	/**
@@ -86,6 +176,7 @@ public class DataManager {
 	 * @param ID The ID of the data (from 1 to the max ID)
 	 */
 	public <T extends Data> T loadData(Class<T> dataClass, int ID) {
+		long tic = Metrics.tic();
 		T data = null;
 		String className = getDataClass(dataClass);
 		try {
@@ -95,6 +186,7 @@ public class DataManager {
 		} catch (Exception e) {
 			System.out.println("The file ../Data/" + className + ID + DATA_EXTENSION + " doesn't exist.");
 		}
+		Metrics.toc(Phase.DATA_LOAD, tic);
 		return data;
 	}
 	
@@ -1,18 +1,23 @@
 package s2D.library.graphicElements.windows;
 
-import s2D.eventEngine.*;
-
 /**
- * Specifies a choice for the choice window.
+ * Specifies a choice for the choice window.<br/>
+ * Migration from the version 1.0 : the action was an EventAction of the former eventEngine, which is not part of the engine anymore.
+ * It is now a Runnable : the former action is wrapped in a Runnable.
  * @author Guillaume Singland
- * @version 1.0
+ * @version 2.0
  */
 public final class ChoiceElement {
 	
 	private String name;
-	private EventAction action;
-
-	public ChoiceElement(String name, EventAction action) {
+	private Runnable action;
+	
+	/**
+	 * Build a choice.
+	 * @param name The name shown by the window
+	 * @param action What must be done when the choice is selected
+	 */
+	public ChoiceElement(String name, Runnable action) {
 		this.name = name;
 		this.action = action;
 	}
@@ -2,17 +2,19 @@ package s2D.library.graphicElements.windows;
 
 import java.awt.*;
 import java.util.*;
-import s2D.graphicEngine.*;
-import s2D.eventEngine.*;
+import s2D.windowEngine.*;
 
 /**
- * A window to make choices.
- * It provides its own KeyboardManager and MouseManager.
+ * A window to make choices, among any nb of them.<br/>
+ * The list is virtualized : the window only has a text per visible row, and scrolls over the choices by an offset.
+ * The rows are recycled in a ring (the choice i is shown by the row i modulo the nb of rows), so that scrolling by one choice only sets one text,
+ * and the choice under a point is computed from its position. The cost of the window is bounded by its visible rows, whatever the nb of choices.<br/>
+ * It provides its own signal listeners.
  * @author Guillaume Singland
- * @version 1.0
+ * @version 2.0
  */
-public class WindowChoice extends WindowBase {
-
+public class WindowChoice extends GContainer {
+	
 	/////////////// PARAMETERS ///////////////////////
 	
 	public static final Font LINES_FONT = new Font("Serial", Font.PLAIN, 20);	// The font of the text
@@ -23,74 +25,190 @@ public class WindowChoice extends WindowBase {
 	
 	//////////////////////////////////////////////////
 	
+	private static final int LINE_HEIGHT = getLineHeight();	// The height of a row
+	
 	private java.util.List<ChoiceElement> choices;		// The choices list
-	private java.util.List<GraphicText> texts;		// The graphic text list
+	private GText[] rows;					// The text of each visible row
+	private int[] shown;					// The choice shown by each row (-1 if none)
 	private int index;					// The index of the selected choice
+	private int offset;					// The index of the first visible choice
+	private SListener[] listeners;				// The signal listeners (null until they are made)
 	
 	/**
-	 * Build a choice window.
+	 * Build a choice window, showing all its choices.
 	 * @param x The x location of the left top corner
 	 * @param y The y location of the left top corner
 	 * @param z The display priority of the window ; the text is one layer above.
 	 * @param width The width of the window, border included
+	 * @param choices The choices
 	 */
 	public WindowChoice(int x, int y, int z, int width, ChoiceElement... choices) {
-		super(x, y, z, width, WindowBase.BORDER * 2 + 10);
-		initialize(choices);
+		this(x, y, z, width, Math.max(choices.length, 1), WindowBase.PATH, choices);
 	}
 	
 	/**
-	 * Build a choice window.
+	 * Build a choice window, showing all its choices.
 	 * @param x The x location of the left top corner
 	 * @param y The y location of the left top corner
 	 * @param z The display priority of the window ; the text is one layer above.
 	 * @param width The width of the window, border included
+	 * @param path The path of the template for the window.
+	 * @param choices The choices
 	 */
 	public WindowChoice(int x, int y, int z, int width, String path, ChoiceElement... choices) {
-		super(x, y, z, width, WindowBase.BORDER * 2 + 10, path);
-		initialize(choices);
+		this(x, y, z, width, Math.max(choices.length, 1), path, choices);
 	}
 	
-	private void initialize(ChoiceElement... choices) {
-		this.choices = new ArrayList<ChoiceElement>();
-		this.texts = new ArrayList<GraphicText>();
-		int i = 0;
+	/**
+	 * Build a scrolling choice window.
+	 * @param x The x location of the left top corner
+	 * @param y The y location of the left top corner
+	 * @param z The display priority of the window ; the text is one layer above.
+	 * @param width The width of the window, border included
+	 * @param visibleRows The nb of visible rows
+	 * @param choices The choices
+	 */
+	public WindowChoice(int x, int y, int z, int width, int visibleRows, ChoiceElement... choices) {
+		this(x, y, z, width, visibleRows, WindowBase.PATH, choices);
+	}
+	
+	/**
+	 * Build a scrolling choice window.
+	 * @param x The x location of the left top corner
+	 * @param y The y location of the left top corner
+	 * @param z The display priority of the window ; the text is one layer above.
+	 * @param width The width of the window, border included
+	 * @param visibleRows The nb of visible rows
+	 * @param path The path of the template for the window.
+	 * @param choices The choices
+	 */
+	public WindowChoice(int x, int y, int z, int width, int visibleRows, String path, ChoiceElement... choices) {
+		super(x, y, z, width, WindowBase.BORDER * 2 + LINES_MARGIN * 2 + visibleRows * LINE_HEIGHT);
+		if (visibleRows <= 0) {
+			throw new IllegalArgumentException("A choice window needs at least one visible row.");
+		}
+		this.choices = new ArrayList<ChoiceElement>(Arrays.asList(choices));
+		this.rows = new GText[visibleRows];
+		this.shown = new int[visibleRows];
 		this.index = 0;
-		for (ChoiceElement elt : choices) {
-			this.choices.add(elt);
-			GraphicText txt = new GraphicText(getX() + WindowBase.BORDER + LINES_MARGIN, getY() + WindowBase.BORDER + LINES_MARGIN, getZ() + 1, elt.getName(), LINES_COLOR, LINES_FONT);
-			int lineHeight = txt.getAscent() + txt.getDescent() + txt.getLeading();
-			txt.setY(txt.getY() + i * lineHeight);
-			texts.add(txt);
-			add(txt);
-			setHeight(getHeight() + lineHeight);
-			updateChoice(i);
-			i ++;
+		this.offset = 0;
+		
+		beginBatch();
+		add(new WindowBase(0, 0, 0, width, getHeight(), path));
+		for (int i = 0; i < visibleRows; i++) {
+			rows[i] = new GText(WindowBase.BORDER + LINES_MARGIN, WindowBase.BORDER + LINES_MARGIN + i * LINE_HEIGHT, 1, "", LINES_COLOR, LINES_FONT);
+			shown[i] = -1;
+			add(rows[i]);
 		}
+		updateRows();
+		endBatch();
+	}
+	
+	/**
+	 * Get the height of a row, from the cached metrics of the font.
+	 */
+	private static int getLineHeight() {
+		FontMetrics fm = GGlyphAtlas.getMetrics(LINES_FONT);
+		return fm.getAscent() + fm.getDescent() + fm.getLeading();
 	}
 	
 	//////////////////////////////////////////////////////
 	
+	/**
+	 * Add a choice at the end of the list.
+	 * @param choice The new choice
+	 */
+	public void add(ChoiceElement choice) {
+		if (choice == null) {
+			throw new IllegalArgumentException("The choice can't be null.");
+		}
+		choices.add(choice);
+		updateRows();
+	}
+	
 	/**
 	 * Edit a choice.
+	 * @param ID The index of the choice
+	 * @param newChoice The new choice
 	 */
 	public void set(int ID, ChoiceElement newChoice) {
+		if (newChoice == null) {
+			throw new IllegalArgumentException("The choice can't be null.");
+		}
 		choices.set(ID, newChoice);
-		updateChoice(ID);
+		if (ID >= offset && ID < offset + rows.length) {
+			shown[ID % rows.length] = -1;
+			updateRows();
+		}
 	}
 	
 	/**
-	 * Get a KeyboardManager matching with the current window
+	 * Run the selected choice.
 	 */
-	public KeyboardManager getKeyboardManager() {
-		return new WindowChoiceKeyboardManager();
+	public void select() {
+		if (!choices.isEmpty()) {
+			getChoice(index).run();
+		}
 	}
 	
 	/**
-	 * Get a MouseManager matching with the current window.
+	 * Add the signal listeners of the window to a Window Manager :
+	 * the arrows and the mouse wheel move the selection, space, enter and a left click run it, and hovering a choice selects it.
+	 * @param w The Window Manager
 	 */
-	public MouseManager getMouseManager() {
-		return new WindowChoiceMouseManager();
+	public void addListeners(WindowManager w) {
+		if (listeners == null) {
+			listeners = new SListener[] {
+				new SListener() {
+					public void onSignal(SCtx c) {
+						SKey key = c.getKeyCtx().getKey();
+						if (key == SKey.UP) {
+							move(-1);
+						} else if (key == SKey.DOWN) {
+							move(1);
+						} else if (key == SKey.SPACE || key == SKey.ENTER) {
+							select();
+						}
+					}
+				},
+				new SListener() {
+					public void onSignal(SCtx c) {
+						int i = getIndexAt(c.getMouseCtx().getX(), c.getMouseCtx().getY());
+						if (i >= 0) {
+							setIndex(i);
+						}
+					}
+				},
+				new SListener() {
+					public void onSignal(SCtx c) {
+						if (getIndexAt(c.getMouseCtx().getX(), c.getMouseCtx().getY()) >= 0) {
+							select();
+						}
+					}
+				},
+				new SListener() {
+					public void onSignal(SCtx c) {
+						move((c.getMouseCtx().getScrollValue() < 0) ? -1 : 1);
+					}
+				}
+			};
+		}
+		w.addListener(Signal.keySignal(Signal.K_PRESSED), listeners[0]);
+		w.addListener(Signal.mouseSignal(Signal.M_MOVED), listeners[1]);
+		w.addListener(Signal.mouseSignal(Signal.M_PRESSED, SButton.LEFT), listeners[2]);
+		w.addListener(Signal.mouseSignal(Signal.M_SCROLLED), listeners[3]);
+	}
+	
+	/**
+	 * Remove the signal listeners of the window from a Window Manager.
+	 * @param w The Window Manager
+	 */
+	public void removeListeners(WindowManager w) {
+		if (listeners != null) {
+			for (SListener l : listeners) {
+				w.removeListener(l);
+			}
+		}
 	}
 	
 	//////////////////////////////////////////////////////
@@ -107,89 +225,105 @@ public class WindowChoice extends WindowBase {
 		return choices.get(ID);
 	}
 	
+	/**
+	 * Get the index of the first visible choice.
+	 */
+	public int getOffset() {
+		return offset;
+	}
+	
+	/**
+	 * Get the nb of visible rows.
+	 */
+	public int getVisibleRows() {
+		return rows.length;
+	}
+	
+	/**
+	 * Get the index of the choice under a point, or -1 if there is none.
+	 * @param x The x position, in the same space as the position of the window
+	 * @param y The y position, in the same space as the position of the window
+	 */
+	public int getIndexAt(int x, int y) {
+		int top = getY() + WindowBase.BORDER + LINES_MARGIN;
+		if (x < getX() || x >= getX() + getWidth() || y < top || y >= top + rows.length * LINE_HEIGHT) {
+			return -1;
+		}
+		int i = offset + (y - top) / LINE_HEIGHT;
+		return (i < choices.size()) ? i : -1;
+	}
+	
+	/**
+	 * Select a choice, and scroll to show it if it is hidden.
+	 * @param index The index of the choice
+	 */
 	public void setIndex(int index) {
 		if (index >= 0 && index < choices.size() && index != this.index) {
-			int oldIndex = this.index;
 			this.index = index;
-			updateChoice(oldIndex);
-			updateChoice(index);
+			if (index < offset) {
+				offset = index;
+			} else if (index >= offset + rows.length) {
+				offset = index - rows.length + 1;
+			}
+			updateRows();
 		}
 	}
 	
-	//////////////////////////////////////////////////////
-	
 	/**
-	 * Change a graphic text, from its ID.
+	 * Set the index of the first visible choice.
+	 * @param offset The new offset, clamped to the choices
 	 */
-	private void updateChoice(int ID) {
-		GraphicText txt = texts.get(ID);
-		if (ID == index) {
-			txt.setX(getX() + WindowBase.BORDER + SELECTED_LEFT_MARGIN);
-			txt.setColor(Color.YELLOW);
-		} else {
-			txt.setX(getX() + WindowBase.BORDER + LINES_MARGIN);
-			txt.setColor(Color.WHITE);
+	public void setOffset(int offset) {
+		offset = Math.max(0, Math.min(offset, choices.size() - rows.length));
+		if (offset != this.offset) {
+			this.offset = offset;
+			updateRows();
 		}
-		update();
 	}
 	
 	//////////////////////////////////////////////////////
 	
-	class WindowChoiceKeyboardManager extends KeyboardManager {
-		public void whenClicked(KeyboardKey key) {
-			if (key == KeyboardKey.UP) {
-				if (index > 0) {
-					setIndex(getIndex() - 1);
-				} else {
-					setIndex(choices.size() - 1);
-				}
-			} else if (key == KeyboardKey.DOWN) {
-				if (index < choices.size() - 1) {
-					setIndex(index + 1);
-				} else {
-					setIndex(0);
-				}	
-			} else if (key == KeyboardKey.SPACE || key == KeyboardKey.ENTER) {
-				getChoice(getIndex()).run();
-			}
+	/**
+	 * Move the selection, from the last choice to the first one and back.
+	 * @param step The nb of choices to move by
+	 */
+	private void move(int step) {
+		if (!choices.isEmpty()) {
+			setIndex(Math.floorMod(index + step, choices.size()));
 		}
 	}
 	
-	class WindowChoiceMouseManager extends MouseManager {
- 		public void whenClicked(int x, int y, MouseButton button, int countClick) {
- 			if (button == MouseButton.LEFT) {
- 				for (GraphicText txt : texts) {
- 					if (txt.inElement(x, y)) {
- 						getChoice(index).run();
- 					}
- 				}
- 			}
- 		}
- 		
- 		public void whenHover(int x, int y) {
- 			int i = 0;
- 			for (GraphicText txt : texts) {
- 				if (txt.inElement(x, y)) {
- 					setIndex(i);
- 				}
- 				i ++;
- 			}
- 		}
- 		
-		public void whenScrolled(int rotationClicks) {
-			if (rotationClicks < 0) {
-				if (index > 0) {
-					setIndex(getIndex() - 1);
-				} else {
-					setIndex(choices.size() - 1);
-				}
-			} else {
-				if (index < choices.size() - 1) {
-					setIndex(index + 1);
-				} else {
-					setIndex(0);
+	/**
+	 * Make each row show its choice : a row only changes its text when it shows another choice,
+	 * and only changes its place when the window scrolled.
+	 */
+	private void updateRows() {
+		beginBatch();
+		for (int r = 0; r < rows.length; r++) {
+			// The row showing the choice i is the row i modulo the nb of rows
+			int i = offset + Math.floorMod(r - offset, rows.length);
+			GText txt = rows[r];
+			if (i >= choices.size()) {
+				if (shown[r] != -1) {
+					shown[r] = -1;
+					txt.setText("");
 				}
+				continue;
+			}
+			if (shown[r] != i) {
+				shown[r] = i;
+				txt.setText(choices.get(i).getName());
+			}
+			int x = WindowBase.BORDER + ((i == index) ? SELECTED_LEFT_MARGIN : LINES_MARGIN);
+			int y = WindowBase.BORDER + LINES_MARGIN + (i - offset) * LINE_HEIGHT;
+			Color color = (i == index) ? SELECTED_COLOR : LINES_COLOR;
+			if (txt.getX() != x || txt.getY() != y) {
+				txt.setXY(x, y);
+			}
+			if (!txt.getColor().equals(color)) {
+				txt.setColor(color);
 			}
 		}
- 	}
+		endBatch();
+	}
 }
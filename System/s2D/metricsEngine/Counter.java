@@ -0,0 +1,14 @@
+package s2D.metricsEngine;
+
+/**
+ * Specifies the counted events.
+ * @author Guillaume Singland
+ * @version 2.0
+ */
+public enum Counter {
+	RASTERIZATIONS,		// The nb of element images rasterized
+	RASTER_BYTES,		// The nb of bytes allocated for rasters
+	DISPATCHES,		// The nb of signals dispatched to the listeners
+	NOTIFICATIONS,		// The nb of observers notified by the elements
+	BLITS			// The nb of images drawn on the render target
+}
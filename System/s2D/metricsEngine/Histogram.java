@@ -0,0 +1,150 @@
+package s2D.metricsEngine;
+
+import java.util.concurrent.atomic.*;
+
+/**
+ * A histogram of durations, with fixed buckets.<br/>
+ * The buckets are logarithmic, with 8 sub-buckets per power of 2, so that any duration is known within 12.5% whatever its scale.
+ * Recording a duration doesn't allocate nor lock, and the histogram can be read while it is recorded in.
+ * @author Guillaume Singland
+ * @version 2.0
+ */
+public class Histogram {
+	
+	/////////// PARAMETERS //////////////////////////
+	
+	private final static int SUB_BITS = 3;				// The nb of bits of precision within a power of 2
+	private final static int SUB_COUNT = 1 << SUB_BITS;		// The nb of sub-buckets per power of 2
+	private final static int LINEAR = SUB_COUNT * 2;		// The durations below which each value has its own bucket
+	private final static int BUCKETS = LINEAR + (63 - (SUB_BITS + 1)) * SUB_COUNT;	// The nb of buckets
+	
+	/////////////////////////////////////////////////
+	
+	private AtomicLongArray counts;		// The nb of durations in each bucket
+	private AtomicLong count;		// The nb of durations recorded
+	private AtomicLong total;		// The sum of the durations recorded (in ns)
+	private AtomicLong max;			// The max duration recorded (in ns)
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Build an empty histogram.
+	 */
+	public Histogram() {
+		counts = new AtomicLongArray(BUCKETS);
+		count = new AtomicLong();
+		total = new AtomicLong();
+		max = new AtomicLong();
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Record a duration.
+	 * @param duration The duration (in ns, the negative ones count as 0)
+	 */
+	public void record(long duration) {
+		if (duration < 0) {
+			duration = 0;
+		}
+		counts.incrementAndGet(bucket(duration));
+		count.incrementAndGet();
+		total.addAndGet(duration);
+		long m = max.get();
+		while (duration > m && !max.compareAndSet(m, duration)) {
+			m = max.get();
+		}
+	}
+	
+	/**
+	 * Forget all the durations recorded.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts.set(i, 0);
+		}
+		count.set(0);
+		total.set(0);
+		max.set(0);
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Get the nb of durations recorded.
+	 */
+	public long getCount() {
+		return count.get();
+	}
+	
+	/**
+	 * Get the mean duration (in ns).
+	 */
+	public long getMean() {
+		long n = count.get();
+		return (n == 0) ? 0 : total.get() / n;
+	}
+	
+	/**
+	 * Get the max duration (in ns).
+	 */
+	public long getMax() {
+		return max.get();
+	}
+	
+	/**
+	 * Get a percentile of the durations (in ns), ie the duration below which is the given part of them.<br/>
+	 * It is the upper bound of the bucket where the percentile falls, so it is overestimated by 12.5% at most.
+	 * @param percent The part of the durations (from 0 to 100)
+	 */
+	public long getPercentile(double percent) {
+		if (percent < 0 || percent > 100) {
+			throw new IllegalArgumentException("A percentile must be between 0 and 100.");
+		}
+		long n = 0;
+		long[] snapshot = new long[BUCKETS];
+		for (int i = 0; i < BUCKETS; i++) {
+			snapshot[i] = counts.get(i);
+			n += snapshot[i];
+		}
+		if (n == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(n * percent / 100));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += snapshot[i];
+			if (seen >= rank) {
+				return Math.min(upperBound(i), max.get());
+			}
+		}
+		return max.get();
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Get the bucket of a duration.
+	 */
+	private static int bucket(long duration) {
+		if (duration < LINEAR) {
+			return (int) duration;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(duration);
+		int sub = (int) (duration >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+		return LINEAR + (exponent - SUB_BITS - 1) * SUB_COUNT + sub;
+	}
+	
+	/**
+	 * Get the greatest duration of a bucket.
+	 */
+	private static long upperBound(int bucket) {
+		if (bucket < LINEAR) {
+			return bucket;
+		}
+		int exponent = (bucket - LINEAR) / SUB_COUNT + SUB_BITS + 1;
+		long sub = (bucket - LINEAR) % SUB_COUNT;
+		long width = 1L << (exponent - SUB_BITS);
+		return ((SUB_COUNT + sub) * width) + width - 1;
+	}
+}
@@ -0,0 +1,246 @@
+package s2D.metricsEngine;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * The metrics of the engine : a histogram of the durations of each phase of a frame, and some counters.<br/>
+ * A phase is timed this way :
+ * <pre>
+ * long tic = Metrics.tic();
+ * ...
+ * Metrics.toc(Phase.CONTEXT_UPDATE, tic);
+ * </pre>
+ * The metrics can be dumped periodically to a file, in CSV or in JSON, to compare the releases on real scenes.
+ * @author Guillaume Singland
+ * @version 2.0
+ */
+public final class Metrics {
+	
+	private static volatile boolean enabled = true;		// Whether the metrics are recorded or not
+	private static Histogram[] histograms;			// The histogram of each phase
+	private static AtomicLong[] counters;			// The value of each counter
+	private static Timer dumper;				// The timer dumping the metrics (null if not dumping)
+	
+	static {
+		histograms = new Histogram[Phase.values().length];
+		for (Phase p : Phase.values()) {
+			histograms[p.ordinal()] = new Histogram();
+		}
+		counters = new AtomicLong[Counter.values().length];
+		for (Counter c : Counter.values()) {
+			counters[c.ordinal()] = new AtomicLong();
+		}
+	}
+	
+	private Metrics() { }
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Get the time when a phase begins (in ns).
+	 */
+	public static long tic() {
+		return enabled ? System.nanoTime() : 0;
+	}
+	
+	/**
+	 * Record the duration of a phase, from its beginning to now.
+	 * @param phase The phase
+	 * @param tic The time when the phase began, given by tic()
+	 */
+	public static void toc(Phase phase, long tic) {
+		if (enabled && tic != 0) {
+			histograms[phase.ordinal()].record(System.nanoTime() - tic);
+		}
+	}
+	
+	/**
+	 * Record the duration of a phase.
+	 * @param phase The phase
+	 * @param duration The duration (in ns)
+	 */
+	public static void record(Phase phase, long duration) {
+		if (enabled) {
+			histograms[phase.ordinal()].record(duration);
+		}
+	}
+	
+	/**
+	 * Increment a counter.
+	 * @param counter The counter
+	 * @param delta The value to add
+	 */
+	public static void count(Counter counter, long delta) {
+		if (enabled) {
+			counters[counter.ordinal()].addAndGet(delta);
+		}
+	}
+	
+	/**
+	 * Forget all the metrics recorded.
+	 */
+	public static void reset() {
+		for (Histogram h : histograms) {
+			h.reset();
+		}
+		for (AtomicLong c : counters) {
+			c.set(0);
+		}
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Know whether the metrics are recorded.
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+	
+	/**
+	 * Enable or disable the recording of the metrics.
+	 * @param enabled Whether the metrics are recorded or not
+	 */
+	public static void setEnabled(boolean enabled) {
+		Metrics.enabled = enabled;
+	}
+	
+	/**
+	 * Get the histogram of a phase.
+	 * @param phase The phase
+	 */
+	public static Histogram getHistogram(Phase phase) {
+		return histograms[phase.ordinal()];
+	}
+	
+	/**
+	 * Get the value of a counter.
+	 * @param counter The counter
+	 */
+	public static long getCount(Counter counter) {
+		return counters[counter.ordinal()].get();
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Get the header of the CSV lines.
+	 */
+	public static String getCSVHeader() {
+		StringBuilder s = new StringBuilder("time");
+		for (Phase p : Phase.values()) {
+			String name = p.name().toLowerCase();
+			s.append(',').append(name).append("_count");
+			s.append(',').append(name).append("_p50");
+			s.append(',').append(name).append("_p99");
+			s.append(',').append(name).append("_max");
+		}
+		for (Counter c : Counter.values()) {
+			s.append(',').append(c.name().toLowerCase());
+		}
+		return s.toString();
+	}
+	
+	/**
+	 * Get the current metrics as a CSV line, matching the header (durations in ns).
+	 */
+	public static String toCSV() {
+		StringBuilder s = new StringBuilder();
+		s.append(System.currentTimeMillis());
+		for (Phase p : Phase.values()) {
+			Histogram h = getHistogram(p);
+			s.append(',').append(h.getCount());
+			s.append(',').append(h.getPercentile(50));
+			s.append(',').append(h.getPercentile(99));
+			s.append(',').append(h.getMax());
+		}
+		for (Counter c : Counter.values()) {
+			s.append(',').append(getCount(c));
+		}
+		return s.toString();
+	}
+	
+	/**
+	 * Get the current metrics as a JSON object, on one line (durations in ns).
+	 */
+	public static String toJSON() {
+		StringBuilder s = new StringBuilder();
+		s.append("{\"time\":").append(System.currentTimeMillis());
+		s.append(",\"phases\":{");
+		for (Phase p : Phase.values()) {
+			Histogram h = getHistogram(p);
+			if (p.ordinal() > 0) {
+				s.append(',');
+			}
+			s.append('"').append(p.name().toLowerCase()).append("\":{");
+			s.append("\"count\":").append(h.getCount());
+			s.append(",\"mean\":").append(h.getMean());
+			s.append(",\"p50\":").append(h.getPercentile(50));
+			s.append(",\"p99\":").append(h.getPercentile(99));
+			s.append(",\"max\":").append(h.getMax());
+			s.append('}');
+		}
+		s.append("},\"counters\":{");
+		for (Counter c : Counter.values()) {
+			if (c.ordinal() > 0) {
+				s.append(',');
+			}
+			s.append('"').append(c.name().toLowerCase()).append("\":").append(getCount(c));
+		}
+		s.append("}}");
+		return s.toString();
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Dump the metrics periodically to a file : a line is appended at each period.<br/>
+	 * If the file ends with ".json", each line is a JSON object ; otherwise it is a CSV line, and the header is written first if the file is new.
+	 * Any previous dump is stopped.
+	 * @param path The path of the file
+	 * @param period The gap between two dumps (in ms)
+	 */
+	public static synchronized void startDump(final String path, long period) {
+		if (period <= 0) {
+			throw new IllegalArgumentException("The gap between two dumps must be strictly positive.");
+		}
+		stopDump();
+		final boolean json = path.endsWith(".json");
+		if (!json && !new File(path).exists()) {
+			write(path, getCSVHeader());
+		}
+		dumper = new Timer("Metrics dumper", true);
+		dumper.scheduleAtFixedRate(new TimerTask() {
+			public void run() {
+				write(path, json ? toJSON() : toCSV());
+			}
+		}, period, period);
+	}
+	
+	/**
+	 * Stop dumping the metrics.
+	 */
+	public static synchronized void stopDump() {
+		if (dumper != null) {
+			dumper.cancel();
+			dumper = null;
+		}
+	}
+	
+	/**
+	 * Append a line to a file.
+	 * @param path The path of the file
+	 * @param line The line
+	 */
+	private static void write(String path, String line) {
+		try {
+			FileWriter file = new FileWriter(path, true);
+			file.write(line + System.lineSeparator());
+			file.close();
+		} catch (IOException e) {
+			System.out.println("There was a problem in writing the file " + path + ".");
+		}
+	}
+}
@@ -0,0 +1,18 @@
+package s2D.metricsEngine;
+
+/**
+ * Specifies the timed phases of a frame.
+ * @author Guillaume Singland
+ * @version 2.0
+ */
+public enum Phase {
+	SCENE_UPDATE,		// A tick of the scene (Scene.update)
+	SCENE_RENDER,		// The preparation of the rendering of the scene (Scene.render)
+	CONTEXT_UPDATE,		// The update of the changed elements' images
+	CONTEXT_PUBLISH,	// The building of the frame to draw
+	CONTEXT_DRAW,		// The drawing of the frame on the window's buffer
+	WINDOW_UPDATE,		// The presentation of the window's buffer, including the flip
+	WINDOW_SHOW,		// The flip of the buffer strategy (BufferStrategy.show)
+	DATA_LOAD,		// The loading of an image or a data file
+	FRAME			// The gap between two presented frames
+}
@@ -0,0 +1,125 @@
+package s2D.sceneEngine;
+
+import java.util.concurrent.locks.*;
+
+/**
+ * Paces a loop at a given frame rate.<br/>
+ * The waiting thread is parked for the bulk of the gap between two frames, and only spins for the last part, so that it neither burns a core nor wakes up late.
+ * The lateness of each wake-up (the jitter) is measured.<br/>
+ * Only one thread waits on a scheduler, but its rate can be set and its jitter read by any thread.
+ * @author Guillaume Singland
+ * @version 2.0
+ */
+public class FrameScheduler {
+	
+	/////////// PARAMETERS //////////////////////////
+	
+	private final static long SPIN_TIME = 500000;		// The time spent spinning before a deadline (in ns)
+	
+	/////////////////////////////////////////////////
+	
+	private volatile long period;		// The gap between two frames (in ns)
+	private long deadline;			// The time of the next frame (in ns, -1 if not started), only used by the waiting thread
+	private long frames;			// The nb of frames waited for (guarded by this)
+	private long totalJitter;		// The sum of the wake-up latenesses (in ns, guarded by this)
+	private long maxJitter;			// The max wake-up lateness (in ns, guarded by this)
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Build a frame scheduler.
+	 * @param rate The frame rate (in frames per second)
+	 */
+	public FrameScheduler(int rate) {
+		setRate(rate);
+		this.deadline = -1;
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Wait for the next frame.<br/>
+	 * If the loop is late by more than a whole frame, the missed frames are skipped instead of being run in a row.
+	 * A new rate is taken into account from the next frame on.
+	 */
+	public void waitNextFrame() {
+		long period = this.period;
+		long now = System.nanoTime();
+		if (deadline == -1) {
+			deadline = now;
+		}
+		deadline += period;
+		
+		long remaining = deadline - now;
+		while (remaining > SPIN_TIME) {
+			LockSupport.parkNanos(remaining - SPIN_TIME);
+			remaining = deadline - System.nanoTime();
+		}
+		while (remaining > 0) {
+			Thread.onSpinWait();
+			remaining = deadline - System.nanoTime();
+		}
+		
+		long jitter = -remaining;
+		synchronized (this) {
+			frames++;
+			totalJitter += jitter;
+			if (jitter > maxJitter) {
+				maxJitter = jitter;
+			}
+		}
+		if (jitter > period) {
+			deadline = System.nanoTime();
+		}
+	}
+	
+	/**
+	 * Forget the jitter measured so far.
+	 */
+	public synchronized void resetJitter() {
+		frames = 0;
+		totalJitter = 0;
+		maxJitter = 0;
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Get the frame rate (in frames per second).
+	 */
+	public double getRate() {
+		return 1e9 / period;
+	}
+	
+	/**
+	 * Get the gap between two frames (in ns).
+	 */
+	public long getPeriod() {
+		return period;
+	}
+	
+	/**
+	 * Get the mean wake-up lateness (in ns).
+	 */
+	public synchronized long getMeanJitter() {
+		return (frames == 0) ? 0 : totalJitter / frames;
+	}
+	
+	/**
+	 * Get the max wake-up lateness (in ns).
+	 */
+	public synchronized long getMaxJitter() {
+		return maxJitter;
+	}
+	
+	/**
+	 * Set the frame rate.
+	 * @param rate The new frame rate (in frames per second)
+	 */
+	public void setRate(int rate) {
+		if (rate < 1) {
+			throw new IllegalArgumentException("The frame rate must be strictly positive.");
+		}
+		this.period = 1000000000L / rate;
+	}
+}
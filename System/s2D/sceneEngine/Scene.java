@@ -12,6 +12,7 @@ public abstract class Scene {
 	private boolean paused;
 	private boolean running;
 	private Scene nextScene;
+	private volatile long time;
 
 	/////////////////////////////////////////////////
 	
@@ -22,6 +23,7 @@ public abstract class Scene {
 		paused = false;
 		running = true;
 		nextScene = null;
+		time = 0;
 	}
 	
 	/////////////////////////////////////////////////
@@ -36,6 +38,17 @@ public abstract class Scene {
  	 */
  	public abstract void update();
  	
+ 	/**
+ 	 * Prepares the rendering of the scene ; is called every frame, once the updates of the frame are done.<br/>
+ 	 * With a fixed timestep, the scene is updated a whole nb of times per frame, so the rendering lags behind the real time :
+ 	 * the scene can place its elements between their previous and their current states, to keep the moves smooth.
+ 	 * Does nothing by default.
+ 	 * @param alpha The part of a tick elapsed since the last update (from 0 to 1, always 1 without a fixed timestep)
+ 	 */
+ 	public void render(double alpha) {
+ 		
+ 	}
+ 	
  	/////////////////////////////////////////////////
  	
  	/**
@@ -90,4 +103,20 @@ public abstract class Scene {
  	final Scene nextScene() {
  		return nextScene;
  	}
+ 	
+ 	/**
+ 	 * Get the time of the scene (in ns) : the time elapsed in its updates, without its pauses.<br/>
+ 	 * With a fixed timestep, it is advanced by exactly one tick per update, so that what depends on it (the animations...) is deterministic.
+ 	 */
+ 	public final long getTime() {
+ 		return time;
+ 	}
+ 	
+ 	/**
+ 	 * Advance the time of the scene, before an update.
+ 	 * @param elapsed The time elapsed (in ns)
+ 	 */
+ 	final void advance(long elapsed) {
+ 		time += elapsed;
+ 	}
  }
@@ -3,6 +3,7 @@ package s2D.sceneEngine;
 import java.util.*;
 import java.lang.*;
 import s2D.*;
+import s2D.metricsEngine.*;
 
 /**
  * A Scene Manager.
@@ -11,11 +12,17 @@ import s2D.*;
  */
 public class SceneManager {
 	
-	static final int FRAME_GAP = 20;	// The gap between two frames (in ms)
+	static final int FRAME_RATE = 50;	// The default frame rate (in frames per second)
+	static final int MAX_TICKS = 5;		// The default max nb of ticks run in a frame to catch up
 	
 	/////////////////////////////////////////////////
 	
 	private List<Thread> list;		// The list of the current threads
+	private FrameScheduler sceneScheduler;	// The scheduler of the scene updates
+	private FrameScheduler graphicScheduler;	// The scheduler of the graphic updates
+	private volatile long tick;		// The duration of a tick, with a fixed timestep (in ns, 0 if disabled)
+	private volatile int maxTicks;		// The max nb of ticks run in a frame to catch up
+	private volatile double alpha;		// The part of a tick elapsed since the last update, at the last frame
 	
 	/////////////////////////////////////////////////
 	
@@ -24,6 +31,11 @@ public class SceneManager {
 	 */
 	public SceneManager() {
 		this.list = new ArrayList<Thread>();
+		this.sceneScheduler = new FrameScheduler(FRAME_RATE);
+		this.graphicScheduler = new FrameScheduler(FRAME_RATE);
+		this.tick = 0;
+		this.maxTicks = MAX_TICKS;
+		this.alpha = 1;
 	}
 	
 	/**
@@ -74,14 +86,90 @@ public class SceneManager {
 	/////////////////////////////////////////////////
 	
 	/**
-	 * Wait some time.
-	 * @param millis The number of milliseconds to wait
+	 * Get the frame rate (in frames per second).
 	 */
-	private static void sleep(long millis) {
-		long start = System.currentTimeMillis();
-		while(System.currentTimeMillis() - start < millis);
+	public double getFrameRate() {
+		return sceneScheduler.getRate();
 	}
 	
+	/**
+	 * Set the frame rate of the scene and graphic updates.
+	 * @param rate The new frame rate (in frames per second)
+	 */
+	public void setFrameRate(int rate) {
+		sceneScheduler.setRate(rate);
+		graphicScheduler.setRate(rate);
+	}
+	
+	/**
+	 * Know whether the scene is updated with a fixed timestep.
+	 */
+	public boolean isFixedTimestep() {
+		return tick != 0;
+	}
+	
+	/**
+	 * Get the tick rate (in ticks per second), or 0 without a fixed timestep.
+	 */
+	public double getTickRate() {
+		long t = tick;
+		return (t == 0) ? 0 : 1e9 / t;
+	}
+	
+	/**
+	 * Set a fixed timestep : the scene is then updated at the tick rate, whatever the frame rate.<br/>
+	 * At each frame, the time elapsed is added to an accumulator, and as many ticks as it holds are run ;
+	 * the rest is given to the scene's rendering as an interpolation alpha. A slow frame is thus caught up by the next ones, without changing the game speed.
+	 * @param rate The tick rate (in ticks per second, 0 to update the scene once per frame)
+	 */
+	public void setTickRate(int rate) {
+		if (rate < 0) {
+			throw new IllegalArgumentException("The tick rate can't be negative.");
+		}
+		tick = (rate == 0) ? 0 : 1000000000L / rate;
+	}
+	
+	/**
+	 * Get the max nb of ticks run in a frame to catch up.
+	 */
+	public int getMaxTicks() {
+		return maxTicks;
+	}
+	
+	/**
+	 * Set the max nb of ticks run in a frame to catch up. Beyond it, the late time is dropped, and the game slows down instead of spiraling.
+	 * @param max The max nb of ticks (at least 1)
+	 */
+	public void setMaxTicks(int max) {
+		if (max < 1) {
+			throw new IllegalArgumentException("The max nb of ticks per frame must be strictly positive.");
+		}
+		maxTicks = max;
+	}
+	
+	/**
+	 * Get the interpolation alpha given to the rendering at the last frame.
+	 */
+	public double getAlpha() {
+		return alpha;
+	}
+	
+	/**
+	 * Get the scheduler of the scene updates, to watch its jitter.
+	 */
+	public FrameScheduler getSceneScheduler() {
+		return sceneScheduler;
+	}
+	
+	/**
+	 * Get the scheduler of the graphic updates, to watch its jitter.
+	 */
+	public FrameScheduler getGraphicScheduler() {
+		return graphicScheduler;
+	}
+	
+	/////////////////////////////////////////////////
+	
 	/**
 	 * The Scene updater.
 	 */
@@ -91,13 +179,44 @@ public class SceneManager {
 			this.scene = scene;
 		}
 		public void run() {
+			long last = System.nanoTime();
+			long accumulator = 0;
 			while (scene.isRunning()) {
-				long tic = System.currentTimeMillis();
-				scene.update();
-				tic = System.currentTimeMillis() - tic;
-				if (tic < FRAME_GAP) {
-					sleep(FRAME_GAP - tic);
+				long step = tick;
+				if (step == 0) {
+					long now = System.nanoTime();
+					scene.advance(now - last);
+					last = now;
+					long tic = Metrics.tic();
+					scene.update();
+					Metrics.toc(Phase.SCENE_UPDATE, tic);
+					alpha = 1;
+					accumulator = 0;
+				} else {
+					// Run as many ticks as the time elapsed holds
+					long now = System.nanoTime();
+					accumulator += now - last;
+					last = now;
+					int ticks = 0;
+					while (accumulator >= step && ticks < maxTicks && scene.isRunning()) {
+						scene.advance(step);
+						long tic = Metrics.tic();
+						scene.update();
+						Metrics.toc(Phase.SCENE_UPDATE, tic);
+						accumulator -= step;
+						ticks++;
+					}
+					if (accumulator >= step) {
+						// Too late to catch up : drop the late time
+						accumulator %= step;
+					}
+					alpha = (double) accumulator / step;
 				}
+				long tic = Metrics.tic();
+				scene.render(alpha);
+				Metrics.toc(Phase.SCENE_RENDER, tic);
+				Game.WINDOW.publish();
+				sceneScheduler.waitNextFrame();
 			}
 		}
 	}
@@ -112,12 +231,8 @@ public class SceneManager {
 		}
 		public void run() {
 			while (scene.isRunning()) {
-				long tic = System.currentTimeMillis();
 				Game.WINDOW.update();
-				tic = System.currentTimeMillis() - tic;
-				if (tic < FRAME_GAP) {
-					sleep(FRAME_GAP - tic);
-				}
+				graphicScheduler.waitNextFrame();
 			}
 		}
 	}
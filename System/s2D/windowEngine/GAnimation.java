@@ -4,7 +4,8 @@ import java.util.*;
 import java.awt.*;
 
 /**
- * A drawable animated element.
+ * A drawable animated element, whose frames are any elements, switched by hand.<br/>
+ * To play the frames of a sprite sheet over time, a G Sprite is much cheaper : it copies nothing when switching frames.
  * @author Guillaume Singland
  * @version 2.0
  */
@@ -5,15 +5,24 @@ import java.awt.image.*;
 import java.util.*;
 
 /**
- * A displayable container.
+ * A displayable container.<br/>
+ * It keeps track of its changed elements : at an image update, only those are updated, and only the regions they damaged are recomposited
+ * in place, on the image it retains.<br/>
+ * A container can also be cached as a bitmap, for a subtree which seldom changes : its subelements are then flattened in its image only,
+ * and drop their own images. Any change in the subtree makes the whole subtree again.
  * @author Guillaume Singland
  * @version 2.0
  */
 public class GContainer extends GElement implements Runnable {
 	
-	private java.util.List<GElement> list;	// The list of the subelements
+	private GZOrder list;			// The list of the subelements, in the display order
 	private Color background;			// The background color (can be null)
 	private boolean flexible;			// Whether the size is flexible-sized or not
+	private boolean remeasure;			// Whether the size has to be computed again, at the end of the batch
+	private Map<GElement, Child> children;		// The child of each subelement
+	private Set<Child> dirty;			// The children notified since the last image update
+	private GDamage damage;				// The regions to recomposite at the next image update
+	private boolean cached;				// Whether the subelements are flattened in the image of the container only
 	
 	/////////////////////////////////////////////////
 	
@@ -36,7 +45,10 @@ public class GContainer extends GElement implements Runnable {
 	 */
 	public GContainer(int x, int y, int z, Color background) {
 		super(x, y, z);
-		this.list = new ArrayList<GElement>();
+		this.list = new GZOrder();
+		this.children = new HashMap<GElement, Child>();
+		this.dirty = new LinkedHashSet<Child>();
+		this.damage = new GDamage();
 		setBackground(background);
 		setFlexible(true);
 		update();
@@ -65,7 +77,10 @@ public class GContainer extends GElement implements Runnable {
 	 */
 	public GContainer(int x, int y, int z, int width, int height, Color background) {
 		super(x, y, z, width, height);
-		this.list = new ArrayList<GElement>();
+		this.list = new GZOrder();
+		this.children = new HashMap<GElement, Child>();
+		this.dirty = new LinkedHashSet<Child>();
+		this.damage = new GDamage();
 		setBackground(background);
 		setFlexible(false);
 		update();
@@ -76,9 +91,10 @@ public class GContainer extends GElement implements Runnable {
 	 */
 	private void setMeasurements() {
 		if (flexible) {
+			beginBatch();
 			int width = 0;
 			int height = 0;
-	
+			
 			for (GElement elt : list) {
 				if (elt.getX() + elt.getWidth() - 1 > width) {
 					width = elt.getX() + elt.getWidth() - 1;
@@ -87,44 +103,124 @@ public class GContainer extends GElement implements Runnable {
 					height = elt.getY() + elt.getHeight() - 1;
 				}
 			}
-	
+			
 			setWidth(width);
 			setHeight(height);
+			endBatch();
 		}
 	}
 	
 	/**
-	 * Called when a SubElement is notified.
+	 * Warn the container that its elements changed, so that it needs an image update and, if it is flexible, a new size.<br/>
+	 * The size is computed once, at the end of the batch : adding many elements within a batch doesn't compute it for each of them.
 	 */
-	public void run() {
+	private void notifyLayout() {
+		beginBatch();
+		remeasure = flexible;
 		notifyChange();
+		endBatch();
+	}
+	
+	/**
+	 * Compute the size delayed during the batch.
+	 */
+	protected void endOfBatch() {
+		if (remeasure) {
+			remeasure = false;
+			setMeasurements();
+		}
+	}
+	
+	/**
+	 * Called when the whole container has to be recomposited.
+	 */
+	public void run() {
+		damage.addAll();
+		notifyLayout();
 	}
 	
 	/////////////////////////////////////////////////
 	
 	/**
-	 * Perform the image update.
+	 * Perform the image update.<br/>
+	 * The changed subelements are updated, and the regions they damaged are recomposited in place, on the retained image :
+	 * the frames published only hold copies of the parts of it they draw. A new image is only made when the whole container is recomposited.
 	 */
 	protected void update() {
-		Image image;
-		if (getWidth() > 0 && getHeight() > 0) {
-			image = new BufferedImage(getWidth(), getHeight(), BufferedImage.TYPE_INT_ARGB);
-			Graphics2D g = (Graphics2D) image.getGraphics();
-			
-			if (background != null) {
-				g.setColor(background);
-				g.fillRect(0, 0, getWidth(), getHeight());
+		for (Child child : dirty) {
+			child.elt.imageUpdate();
+			Rectangle r = child.elt.getBounds();
+			Rectangle d = child.elt.getDamaged();
+			if (d != null && r.equals(child.bounds)) {
+				damage.add(new Rectangle(r.x + d.x, r.y + d.y, d.width, d.height).intersection(r));
+			} else {
+				damage.add(child.bounds);
+				damage.add(r);
 			}
-			
-			for (GElement elt : list) {
-				elt.update();
-				g.drawImage(elt.getImage(), elt.getX(), elt.getY(), null);
+			child.bounds = r;
+		}
+		dirty.clear();
+		if (cached) {
+			damage.addAll();
+		}
+		
+		int width = getWidth();
+		int height = getHeight();
+		Image previous = getImage();
+		if (previous == null || previous.getWidth(null) != Math.max(width, 1) || previous.getHeight(null) != Math.max(height, 1)) {
+			damage.addAll();
+		}
+		if (damage.isEmpty()) {
+			return;
+		}
+		
+		BufferedImage image = damage.isFull() ? getSurface(width, height) : getRetainedSurface();
+		if (image == null) {
+			image = getSurface(width, height, previous);
+		}
+		if (width > 0 && height > 0) {
+			Graphics2D g = image.createGraphics();
+			for (Rectangle region : damage.getRegions(width, height)) {
+				g.setClip(region);
+				if (!damage.isFull()) {
+					g.setComposite(AlphaComposite.Clear);
+					g.fillRect(region.x, region.y, region.width, region.height);
+					g.setComposite(AlphaComposite.SrcOver);
+				}
+				if (background != null) {
+					g.setColor(background);
+					g.fillRect(region.x, region.y, region.width, region.height);
+				}
+				for (GElement elt : list) {
+					Rectangle r = children.get(elt).bounds;
+					if (r != null && r.intersects(region)) {
+						elt.draw(g, elt.getX(), elt.getY());
+					}
+				}
 			}
-		} else {
-			image = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+			g.dispose();
 		}
+		damage.clear();
 		
 		setImage(image);
+		if (cached) {
+			for (Child child : children.values()) {
+				child.elt.discardImage();
+				dirty.add(child);
+			}
+		}
+	}
+	
+	/**
+	 * Drop the image of the container and of all its subelements.
+	 */
+	void discardImage() {
+		super.discardImage();
+		for (Child child : children.values()) {
+			child.elt.discardImage();
+			dirty.add(child);
+		}
+		damage.addAll();
 	}
 	
 	/////////////////////////////////////////////////
@@ -139,18 +235,16 @@ public class GContainer extends GElement implements Runnable {
 		if (elt == this) {
 			throw new IllegalArgumentException("A container can't be added in itself.");
 		}
-		int i = 0;
-		while ((i < list.size()) && (list.get(i).getZ() < elt.getZ())) {
-			i++;
+		if (list.contains(elt)) {
+			return;
 		}
-		list.add(i, elt);
-		elt.addObserver(this);
+		list.add(elt);
+		Child child = new Child(elt);
+		children.put(elt, child);
+		dirty.add(child);
+		elt.addObserver(child);
 		
-		if (flexible) {
-			setMeasurements();
-		} else {
-			notifyChange();
-		}
+		notifyLayout();
 	}
 	
 	/**
@@ -160,30 +254,37 @@ public class GContainer extends GElement implements Runnable {
 		if (elt == null) {
 			throw new IllegalArgumentException("A null element can't be removed to a graphic container.");
 		}
-		list.remove(elt);
-		elt.removeObserver(this);
-		
-		if (flexible) {
-			setMeasurements();
-		} else {
-			notifyChange();
+		if (!list.remove(elt)) {
+			return;
+		}
+		Child child = children.remove(elt);
+		elt.removeObserver(child);
+		if (!elt.isObserved()) {
+			// The element isn't displayed anymore : its surface goes back to the pool
+			elt.discardImage();
 		}
+		dirty.remove(child);
+		damage.add(child.bounds);
+		
+		notifyLayout();
 	}
 	
 	/**
 	 * Remove an element
 	 */
 	public void clear() {
-		for (GElement elt : list) {
-			elt.removeObserver(this);
+		for (Child child : children.values()) {
+			child.elt.removeObserver(child);
+			if (!child.elt.isObserved()) {
+				child.elt.discardImage();
+			}
 		}
 		list.clear();
+		children.clear();
+		dirty.clear();
+		damage.addAll();
 		
-		if (flexible) {
-			setMeasurements();
-		} else {
-			notifyChange();
-		}
+		notifyLayout();
 	}
 	
 	/////////////////////////////////////////////////
@@ -195,6 +296,13 @@ public class GContainer extends GElement implements Runnable {
 		return background;
 	}
 	
+	/**
+	 * Know whether the container is cached as a bitmap or not.
+	 */
+	public boolean isCachedAsBitmap() {
+		return cached;
+	}
+	
 	/**
 	 * Know whether the container is flexible or not.
 	 */
@@ -208,15 +316,47 @@ public class GContainer extends GElement implements Runnable {
 	 */
 	public void setBackground(Color background) {
 		this.background = background;
+		damage.addAll();
 		notifyChange();
 	}
 	
+	/**
+	 * Cache the container as a bitmap or not.<br/>
+	 * When cached, the whole subtree is flattened in the image of the container, and the subelements drop their own images :
+	 * it saves their surfaces, but any change in the subtree makes all of it again. It suits the subtrees which never change once built (frames, decorations).
+	 * @param cached Whether the container is cached as a bitmap or not
+	 */
+	public void setCachedAsBitmap(boolean cached) {
+		if (cached != this.cached) {
+			this.cached = cached;
+			run();
+		}
+	}
+	
 	/**
 	 * Set the flexibility.
 	 * @param flexible The new flexibility
 	 */
 	public void setFlexible(boolean flexible) {
 		this.flexible = flexible;
-		setMeasurements();
+		notifyLayout();
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * A subelement, with the bounds it had at the last image update.<br/>
+	 * It observes the subelement, so that the container knows which ones changed.
+	 */
+	private class Child implements Runnable {
+		private GElement elt;
+		private Rectangle bounds;
+		public Child(GElement elt) {
+			this.elt = elt;
+		}
+		public void run() {
+			dirty.add(this);
+			notifyLayout();
+		}
 	}
 }
@@ -1,17 +1,53 @@
 package s2D.windowEngine;
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 import java.awt.*;
+import java.awt.image.*;
 
 /**
- * A G Context.
+ * A G Context.<br/>
+ * It records the regions damaged by the changes of its elements, so that only those regions are redrawn.
+ * The elements are indexed by their bounds, so that drawing a region or looking under a point only visits the elements there,
+ * and kept in the display order, so that those elements are drawn in this order without sorting all of them : changing the z of an element
+ * only relocates it.<br/>
+ * The elements are placed in the world, seen through a camera, except the ones fixed on the screen : moving the camera changes no element.
+ * It redraws the whole screen, or, in the blit-scroll mode, shifts the pixels already drawn and only redraws the strips exposed
+ * (the whole screen is still presented : the mode saves the drawing of the elements, not the presenting).<br/>
+ * The context belongs to the scene thread, which updates the elements and publishes what to redraw as a G Frame ;
+ * the graphic thread only takes and draws the last published frame, without any lock.
  * @author Guillaume Singland
  * @version 2.0
  */
-class GContext implements Runnable {
+class GContext {
 	
-	private java.util.List<GElement> list;		// The current G Element list
-	private boolean updated;			// Whether there is a change in the list since the last update
+	/////////// PARAMETERS //////////////////////////
+	
+	private final static int MIN_BAKED = 4;			// The min nb of elements worth baking in the static layer
+	private final static int SORT_RATIO = 16;		// The min ratio of all the elements to the ones visited, for sorting them rather than walking the display order
+	
+	/////////////////////////////////////////////////
+	
+	private Map<GElement, Node> nodes;			// The node of each element of the context
+	private java.util.List<Node> changed;			// The nodes notified since the last update
+	private java.util.List<Node> updating;			// The nodes being updated (reused, so that notifying allocates nothing)
+	private java.util.List<Node> removed;			// The nodes removed since the last update
+	private GGrid<Node> grid;				// The index of the nodes in the world, by their bounds
+	private GGrid<Node> fixedGrid;				// The index of the nodes fixed on the screen, by their bounds
+	private TreeSet<Node> order;				// The nodes updated at least once, in the display order
+	private GDamage damage;					// The regions to redraw
+	private long sequence;					// The nb of elements added so far
+	private AtomicReference<GFrame> published;		// The last published frame, not taken yet by the graphic thread
+	private Queue<java.util.List<BufferedImage>> recycled;	// The surfaces the graphic thread doesn't draw anymore
+	private int bakeAfter;					// The nb of frames an element stays unchanged before being baked (0 if never)
+	private long frames;					// The nb of frames published so far
+	private long nextBake;					// The frame when the static layer is to be baked
+	private BufferedImage layer;				// The static layer, where the baked elements are drawn (null if none)
+	private java.util.List<Node> baked;			// The nodes baked in the static layer, in the display order
+	private int cameraX, cameraY;				// The position of the camera in the world
+	private int viewX, viewY;				// The position of the camera at the last frame published, where the damage is
+	private boolean blitScroll;				// Whether moving the camera shifts the pixels drawn, instead of redrawing them all
 	
 	/////////////////////////////////////////////////
 	
@@ -19,71 +55,544 @@ class GContext implements Runnable {
 	 * Build a graphic context.
 	 */
 	GContext() {
-		list = new ArrayList<GElement>();
-		updated = true;
+		nodes = new HashMap<GElement, Node>();
+		changed = new ArrayList<Node>();
+		updating = new ArrayList<Node>();
+		removed = new ArrayList<Node>();
+		grid = new GGrid<Node>();
+		fixedGrid = new GGrid<Node>();
+		order = new TreeSet<Node>();
+		damage = new GDamage();
+		damage.addAll();
+		sequence = 0;
+		published = new AtomicReference<GFrame>();
+		recycled = new ConcurrentLinkedQueue<java.util.List<BufferedImage>>();
+		bakeAfter = 0;
+		frames = 0;
+		baked = new ArrayList<Node>();
 	}
 	
 	/**
 	 * Add an element to the context.
 	 * @param elt The element to add
+	 * @param fixed Whether the element is fixed on the screen, or placed in the world
 	 */
-	void add(GElement elt) {
-		int i = 0;
-		while ((i < list.size()) && (list.get(i).getZ() < elt.getZ())) {
-			i++;
+	synchronized void add(GElement elt, boolean fixed) {
+		if (nodes.containsKey(elt)) {
+			return;
 		}
-		list.add(i, elt);
-		elt.addObserver(this);
-		updated = true;
+		Node node = new Node(elt, sequence++);
+		node.fixed = fixed;
+		nodes.put(elt, node);
+		elt.addObserver(node);
+		node.queued = true;
+		changed.add(node);
 	}
 	
 	/**
-	 * Remove an element from the context.
+	 * Remove an element from the context. Its image is given back to the surface pool at the next update, unless it is displayed elsewhere.
 	 * @param elt The element to remove
 	 */
-	void remove(GElement elt) {
-		list.remove(elt);
-		elt.removeObserver(this);
-		updated = true;
+	synchronized void remove(GElement elt) {
+		Node node = nodes.remove(elt);
+		if (node != null) {
+			elt.removeObserver(node);
+			// A removed node is skipped by the next update, if it is queued
+			node.queued = false;
+			removed.add(node);
+			if (node.baked) {
+				unbake();
+			}
+		}
 	}
 	
 	/**
 	 * Clear the graphic context.
 	 */
-	void clear() {
-		list.clear();
-		for (GElement elt : list) {
-			elt.removeObserver(this);
+	synchronized void clear() {
+		for (Node node : nodes.values()) {
+			node.elt.removeObserver(node);
+			removed.add(node);
 		}
-		updated = true;
+		for (Node node : removed) {
+			// The grids are cleared : only the images are dropped at the next update
+			node.bounds = null;
+		}
+		nodes.clear();
+		changed.clear();
+		grid.clear();
+		fixedGrid.clear();
+		order.clear();
+		damage.addAll();
+		unbake();
 	}
 	
 	/**
-	 * Update all the images. If this implied a change, returns true.
+	 * Damage the whole context, so that everything is redrawn at the next update.
+	 */
+	synchronized void invalidate() {
+		damage.addAll();
+		unbake();
+	}
+	
+	/**
+	 * Set the nb of frames an element has to stay unchanged, before being baked in the static layer.<br/>
+	 * The elements at the bottom of the display order which don't change are baked together in one image, the static layer :
+	 * a damaged region then draws this image once, instead of each of them. The layer is dropped as soon as one of them changes.
+	 * @param frames The nb of frames (0 to never bake)
+	 */
+	synchronized void setBakeAfter(int frames) {
+		if (frames < 0) {
+			throw new IllegalArgumentException("The nb of frames before baking can't be negative.");
+		}
+		bakeAfter = frames;
+		unbake();
+	}
+	
+	/**
+	 * Get the nb of frames an element has to stay unchanged, before being baked in the static layer (0 if never).
+	 */
+	synchronized int getBakeAfter() {
+		return bakeAfter;
+	}
+	
+	/**
+	 * Move the camera : the elements in the world are seen from there at the next frame published.
+	 * @param x The x position of the camera in the world
+	 * @param y The y position of the camera in the world
+	 */
+	synchronized void setCamera(int x, int y) {
+		cameraX = x;
+		cameraY = y;
+	}
+	
+	/**
+	 * Get the x position of the camera in the world.
+	 */
+	synchronized int getCameraX() {
+		return cameraX;
+	}
+	
+	/**
+	 * Get the y position of the camera in the world.
+	 */
+	synchronized int getCameraY() {
+		return cameraY;
+	}
+	
+	/**
+	 * Set the blit-scroll mode.
+	 * @param blitScroll Whether moving the camera shifts the pixels drawn, instead of redrawing them all
+	 */
+	synchronized void setBlitScroll(boolean blitScroll) {
+		this.blitScroll = blitScroll;
+	}
+	
+	/**
+	 * Know whether the blit-scroll mode is on.
+	 */
+	synchronized boolean isBlitScroll() {
+		return blitScroll;
+	}
+	
+	/**
+	 * Get the nb of elements baked in the static layer.
+	 */
+	synchronized int getBakedCount() {
+		return baked.size();
+	}
+	
+	/**
+	 * Update the images of the changed elements. If this implied a change, returns true.<br/>
+	 * Called by the scene thread.
 	 */
 	boolean update() {
-		boolean result = updated;
-		updated = false;
-		for (GElement elt : list) {
-			elt.imageUpdate();
+		java.util.List<Node> list = updating;
+		synchronized (this) {
+			for (Node node : removed) {
+				if (node.bounds != null) {
+					getGrid(node).remove(node, node.bounds);
+					order.remove(node);
+					damage.add(toScreen(node, node.bounds));
+				}
+				if (!node.elt.isObserved()) {
+					// The element isn't displayed anymore : its surface goes back to the pool
+					node.elt.discardImage();
+				}
+			}
+			removed.clear();
+			updating = changed;
+			changed = list;
+			list = updating;
+			int count = 0;
+			for (Node node : list) {
+				// The nodes removed since they were queued aren't queued anymore
+				if (node.queued) {
+					node.queued = false;
+					list.set(count++, node);
+				}
+			}
+			list.subList(count, list.size()).clear();
+		}
+		for (Node node : list) {
+			node.elt.imageUpdate();
+			Rectangle r = node.elt.getBounds();
+			synchronized (this) {
+				if (nodes.get(node.elt) == node) {
+					getGrid(node).move(node, node.bounds, r);
+					Rectangle d = node.elt.getDamaged();
+					if (d != null && r.equals(node.bounds)) {
+						damage.add(toScreen(node, new Rectangle(r.x + d.x, r.y + d.y, d.width, d.height).intersection(r)));
+					} else {
+						damage.add(toScreen(node, node.bounds));
+						damage.add(toScreen(node, r));
+					}
+					int z = node.elt.getZ();
+					if (node.bounds == null || z != node.z) {
+						// The node is relocated in the display order
+						order.remove(node);
+						node.z = z;
+						order.add(node);
+					}
+					node.bounds = r;
+					node.image = node.elt.getImage();
+					node.painting = node.elt.getPainting();
+					node.retained = node.elt.isRetained();
+					node.lastChange = frames;
+					if (node.baked || (!baked.isEmpty() && node.compareTo(baked.get(baked.size() - 1)) <= 0)) {
+						// The static layer doesn't show this element as it is anymore
+						unbake();
+					}
+				}
+			}
+		}
+		list.clear();
+		synchronized (this) {
+			return !damage.isEmpty();
 		}
-		return result;
 	}
 	
 	/**
-	 * Draw the context on the window.
-	 * @param w The window where to draw
+	 * Publish a frame redrawing the damaged regions, for the graphic thread.<br/>
+	 * Only the elements intersecting those regions are visited. If the previous frame hasn't been taken yet, it is replaced by one redrawing its regions too.
+	 * Called by the scene thread.
+	 * @param width The width of the window
+	 * @param height The height of the window
 	 */
-	void draw(Window w) {
-		for (GElement elt : list) {
-			w.draw(elt.getImage(), elt.getX(), elt.getY());
+	synchronized void publish(int width, int height) {
+		java.util.List<BufferedImage> surfaces;
+		while ((surfaces = recycled.poll()) != null) {
+			GSurfacePool.recycle(surfaces);
+		}
+		
+		frames++;
+		int dx = cameraX - viewX;
+		int dy = cameraY - viewY;
+		if (dx != 0 || dy != 0 || (layer != null && (layer.getWidth() != width || layer.getHeight() != height))) {
+			// The static layer is drawn where the elements were on the screen
+			unbake();
+		}
+		if (bakeAfter > 0 && layer == null && frames >= nextBake) {
+			bake(width, height);
+		}
+		
+		java.util.List<BufferedImage> retired = GSurfacePool.retire();
+		GFrame old = published.getAndSet(null);
+		int scrollX = dx;
+		int scrollY = dy;
+		if (old != null) {
+			for (Rectangle r : old.getRegions()) {
+				damage.add(r);
+			}
+			retired.addAll(old.getRetired());
+			scrollX += old.getScrollX();
+			scrollY += old.getScrollY();
+		}
+		if (dx != 0 || dy != 0) {
+			moveCamera(dx, dy, scrollX, scrollY, width, height);
+		}
+		if (damage.isFull()) {
+			scrollX = 0;
+			scrollY = 0;
+		}
+		if (damage.isEmpty() && retired.isEmpty()) {
+			return;
+		}
+		
+		// The elements of all the regions are put in the display order at once, then dealt to the regions they intersect
+		java.util.List<Rectangle> regions = damage.getRegions(width, height);
+		Rectangle[] worlds = new Rectangle[regions.size()];
+		Set<Node> candidates = new HashSet<Node>();
+		for (int i = 0; i < worlds.length; i++) {
+			Rectangle region = regions.get(i);
+			worlds[i] = new Rectangle(region.x + viewX, region.y + viewY, region.width, region.height);
+			grid.query(worlds[i], candidates);
+			fixedGrid.query(region, candidates);
+		}
+		java.util.List<java.util.List<Node>> lists = new ArrayList<java.util.List<Node>>(worlds.length);
+		for (int i = 0; i < worlds.length; i++) {
+			lists.add(new ArrayList<Node>());
+		}
+		for (Node node : inOrder(candidates)) {
+			for (int i = 0; i < worlds.length; i++) {
+				if (node.bounds.intersects(node.fixed ? regions.get(i) : worlds[i])) {
+					lists.get(i).add(node);
+				}
+			}
 		}
+		
+		GFrame frame = new GFrame(retired, scrollX, scrollY);
+		for (int i = 0; i < worlds.length; i++) {
+			Rectangle region = regions.get(i);
+			java.util.List<Node> list = lists.get(i);
+			frame.addRegion(region);
+			for (Node node : list) {
+				if (node.baked) {
+					frame.addItem(layer, null, 0, 0);
+					break;
+				}
+			}
+			for (Node node : list) {
+				if (node.baked) {
+					continue;
+				}
+				Rectangle r = toScreen(node, node.bounds);
+				if (node.retained && node.painting == null && node.image != null) {
+					// The image is drawn on in place by the next updates : the frame holds a copy of the part it draws
+					Rectangle part = r.intersection(region);
+					if (!part.isEmpty()) {
+						frame.addItem(copy(node.image, part.x - r.x, part.y - r.y, part.width, part.height), null, part.x, part.y);
+					}
+				} else {
+					frame.addItem(node.image, node.painting, r.x, r.y);
+				}
+			}
+		}
+		damage.clear();
+		published.set(frame);
+	}
+	
+	/**
+	 * Copy a part of an image in a surface, given back to the pool at once : it is only reused once the frame holding it is drawn.
+	 * @param image The image
+	 * @param x The x position of the part
+	 * @param y The y position of the part
+	 * @param width The width of the part
+	 * @param height The height of the part
+	 */
+	private static BufferedImage copy(Image image, int x, int y, int width, int height) {
+		BufferedImage copy = GSurfacePool.acquire(width, height, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = copy.createGraphics();
+		g.setComposite(AlphaComposite.Src);
+		g.drawImage(image, 0, 0, width, height, x, y, x + width, y + height, null);
+		g.dispose();
+		GSurfacePool.release(copy);
+		return copy;
+	}
+	
+	/**
+	 * Bake the static layer : the longest run of elements at the bottom of the display order, which haven't changed for a while, are drawn in one image.
+	 * Nothing is baked if there are too few of them. The pixels displayed don't change, so nothing is damaged.
+	 * @param width The width of the window
+	 * @param height The height of the window
+	 */
+	private void bake(int width, int height) {
+		nextBake = frames + bakeAfter;
+		java.util.List<Node> list = new ArrayList<Node>();
+		for (Node node : order) {
+			if (node.queued || nodes.get(node.elt) != node || frames - node.lastChange < bakeAfter) {
+				break;
+			}
+			list.add(node);
+		}
+		if (list.size() < MIN_BAKED) {
+			return;
+		}
+		
+		layer = GSurfacePool.acquire(width, height, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = layer.createGraphics();
+		g.setComposite(AlphaComposite.Clear);
+		g.fillRect(0, 0, width, height);
+		g.setComposite(AlphaComposite.SrcOver);
+		for (Node node : list) {
+			Rectangle r = toScreen(node, node.bounds);
+			if (node.painting != null) {
+				node.painting.paint(g, r.x, r.y);
+			} else {
+				g.drawImage(node.image, r.x, r.y, null);
+			}
+			node.baked = true;
+			baked.add(node);
+		}
+		g.dispose();
+	}
+	
+	/**
+	 * Get some nodes in the display order : a few of them are sorted, many of them are picked by walking the display order.
+	 * @param candidates The nodes, all updated at least once
+	 */
+	private java.util.List<Node> inOrder(Set<Node> candidates) {
+		java.util.List<Node> list = new ArrayList<Node>(candidates.size());
+		if ((long) candidates.size() * SORT_RATIO < order.size()) {
+			list.addAll(candidates);
+			Collections.sort(list);
+		} else if (!candidates.isEmpty()) {
+			for (Node node : order) {
+				if (candidates.contains(node)) {
+					list.add(node);
+				}
+			}
+		}
+		return list;
+	}
+	
+	/**
+	 * Drop the static layer : its elements are drawn one by one again.
+	 */
+	private void unbake() {
+		for (Node node : baked) {
+			node.baked = false;
+		}
+		baked.clear();
+		if (layer != null) {
+			GSurfacePool.release(layer);
+			layer = null;
+		}
+		nextBake = frames + bakeAfter;
+	}
+	
+	/**
+	 * Take the move of the camera into account : the damage is moved where it is seen from the camera.<br/>
+	 * In the blit-scroll mode, the frame shifts the pixels already drawn, so that only the strips exposed and the elements fixed on the screen are redrawn ;
+	 * otherwise, or if the camera moved too far, the whole screen is redrawn.
+	 * @param dx The move of the camera since the last frame published, along x
+	 * @param dy The move of the camera since the last frame published, along y
+	 * @param scrollX The shift of the pixels drawn, along x (the move of the camera since the last frame taken)
+	 * @param scrollY The shift of the pixels drawn, along y (the move of the camera since the last frame taken)
+	 * @param width The width of the window
+	 * @param height The height of the window
+	 */
+	private void moveCamera(int dx, int dy, int scrollX, int scrollY, int width, int height) {
+		viewX = cameraX;
+		viewY = cameraY;
+		if (!blitScroll || Math.abs(scrollX) >= width || Math.abs(scrollY) >= height) {
+			damage.addAll();
+			return;
+		}
+		
+		damage.translate(-dx, -dy);
+		int top = (scrollY < 0) ? -scrollY : 0;
+		int bottom = (scrollY > 0) ? height - scrollY : height;
+		if (scrollY > 0) {
+			damage.addEdge(0, bottom, width, scrollY);
+		} else if (scrollY < 0) {
+			damage.addEdge(0, 0, width, top);
+		}
+		if (scrollX > 0) {
+			damage.addEdge(width - scrollX, top, scrollX, bottom - top);
+		} else if (scrollX < 0) {
+			damage.addEdge(0, top, -scrollX, bottom - top);
+		}
+		
+		// The elements fixed on the screen have been shifted with the rest
+		Set<Node> fixed = new HashSet<Node>();
+		fixedGrid.query(new Rectangle(0, 0, width, height), fixed);
+		for (Node node : fixed) {
+			damage.add(node.bounds);
+			damage.add(node.bounds.x - scrollX, node.bounds.y - scrollY, node.bounds.width, node.bounds.height);
+		}
+	}
+	
+	/**
+	 * Get the index of a node.
+	 * @param node The node
+	 */
+	private GGrid<Node> getGrid(Node node) {
+		return node.fixed ? fixedGrid : grid;
+	}
+	
+	/**
+	 * Get where some bounds of a node are on the screen, as of the last frame published.
+	 * @param node The node
+	 * @param r The bounds (in the world, unless the node is fixed on the screen, can be null)
+	 */
+	private Rectangle toScreen(Node node, Rectangle r) {
+		if (node.fixed || r == null) {
+			return r;
+		}
+		return new Rectangle(r.x - viewX, r.y - viewY, r.width, r.height);
+	}
+	
+	/**
+	 * Take the last published frame, or null if there is none.<br/>
+	 * Called by the graphic thread : the surfaces retired by this frame are given back, since the previous frame is drawn.
+	 */
+	GFrame take() {
+		GFrame frame = published.getAndSet(null);
+		if (frame != null && !frame.getRetired().isEmpty()) {
+			recycled.add(frame.getRetired());
+		}
+		return frame;
+	}
+	
+	/**
+	 * Get the elements under a point, from the one displayed on top to the one displayed at the bottom.
+	 * @param x The x position
+	 * @param y The y position
+	 */
+	java.util.List<GElement> getElementsAt(int x, int y) {
+		Set<Node> candidates = new HashSet<Node>();
+		java.util.List<GElement> result = new ArrayList<GElement>();
+		synchronized (this) {
+			grid.query(x + viewX, y + viewY, candidates);
+			fixedGrid.query(x, y, candidates);
+			java.util.List<Node> list = inOrder(candidates);
+			for (int i = list.size() - 1; i >= 0; i--) {
+				Node node = list.get(i);
+				if (node.fixed ? node.bounds.contains(x, y) : node.bounds.contains(x + viewX, y + viewY)) {
+					result.add(node.elt);
+				}
+			}
+		}
+		return result;
 	}
 	
+	/////////////////////////////////////////////////
+	
 	/**
-	 * Called when a SubElement is notified.
+	 * The node of an element in the context, which observes it.<br/>
+	 * The nodes are sorted in the display order, with the z the element had at the last update : by z, and for a same z the last added is displayed below.
+	 * Changing the z of an element notifies it, so it is relocated at the next update (its z is only changed out of the display order).
 	 */
-	public void run() {
-		updated = true;
+	private class Node implements Runnable, Comparable<Node> {
+		private GElement elt;
+		private long sequence;
+		private Rectangle bounds;
+		private int z;
+		private Image image;
+		private GPaint painting;
+		private boolean retained;
+		private boolean queued;
+		private long lastChange;
+		private boolean baked;
+		private boolean fixed;
+		public Node(GElement elt, long sequence) {
+			this.elt = elt;
+			this.sequence = sequence;
+		}
+		public void run() {
+			synchronized (GContext.this) {
+				if (!queued) {
+					queued = true;
+					changed.add(this);
+				}
+			}
+		}
+		public int compareTo(Node o) {
+			if (z != o.z) {
+				return (z < o.z) ? -1 : 1;
+			}
+			return Long.compare(o.sequence, sequence);
+		}
 	}
 }
@@ -0,0 +1,180 @@
+package s2D.windowEngine;
+
+import java.awt.*;
+import java.util.*;
+
+/**
+ * A set of damaged regions of the window, that is, the areas which have to be redrawn.<br/>
+ * Overlapping or touching regions are merged, and when there are too many regions they are collapsed into their bounding box.
+ * @author Guillaume Singland
+ * @version 2.0
+ */
+class GDamage {
+	
+	/////////// PARAMETERS //////////////////////////
+	
+	private final static int MAX_REGIONS = 16;		// The max nb of regions before collapsing them
+	
+	/////////////////////////////////////////////////
+	
+	private java.util.List<Rectangle> regions;		// The damaged regions
+	private boolean full;					// Whether the whole window is damaged
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Build an empty damage.
+	 */
+	GDamage() {
+		regions = new ArrayList<Rectangle>();
+		full = false;
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Add a damaged region.
+	 * @param x The x position
+	 * @param y The y position
+	 * @param width The width
+	 * @param height The height
+	 */
+	void add(int x, int y, int width, int height) {
+		add(x, y, width, height, true);
+	}
+	
+	/**
+	 * Add a damaged region along an edge of the window : it is only merged with the regions it overlaps,
+	 * so that the strips along two edges are kept apart instead of making the whole window.
+	 * @param x The x position
+	 * @param y The y position
+	 * @param width The width
+	 * @param height The height
+	 */
+	void addEdge(int x, int y, int width, int height) {
+		add(x, y, width, height, false);
+	}
+	
+	/**
+	 * Add a damaged region.
+	 * @param x The x position
+	 * @param y The y position
+	 * @param width The width
+	 * @param height The height
+	 * @param adjacent Whether the region is merged with the regions adjacent to it, or only with the ones it overlaps
+	 */
+	private void add(int x, int y, int width, int height, boolean adjacent) {
+		if (full || width <= 0 || height <= 0) {
+			return;
+		}
+		Rectangle r = new Rectangle(x, y, width, height);
+		
+		// Merge the new region with all the regions it touches
+		boolean merged = true;
+		while (merged) {
+			merged = false;
+			Iterator<Rectangle> i = regions.iterator();
+			while (i.hasNext()) {
+				Rectangle o = i.next();
+				if (adjacent ? touches(o, r) : o.intersects(r)) {
+					r = r.union(o);
+					i.remove();
+					merged = true;
+				}
+			}
+		}
+		regions.add(r);
+		
+		if (regions.size() > MAX_REGIONS) {
+			Rectangle bounds = regions.get(0);
+			for (Rectangle o : regions) {
+				bounds = bounds.union(o);
+			}
+			regions.clear();
+			regions.add(bounds);
+		}
+	}
+	
+	/**
+	 * Add a damaged region.
+	 * @param r The region (can be null)
+	 */
+	void add(Rectangle r) {
+		if (r != null) {
+			add(r.x, r.y, r.width, r.height);
+		}
+	}
+	
+	/**
+	 * Damage the whole window.
+	 */
+	void addAll() {
+		full = true;
+		regions.clear();
+	}
+	
+	/**
+	 * Move all the damaged regions.
+	 * @param dx The move along x
+	 * @param dy The move along y
+	 */
+	void translate(int dx, int dy) {
+		for (Rectangle r : regions) {
+			r.translate(dx, dy);
+		}
+	}
+	
+	/**
+	 * Forget all the damaged regions.
+	 */
+	void clear() {
+		full = false;
+		regions.clear();
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Know whether nothing is damaged.
+	 */
+	boolean isEmpty() {
+		return !full && regions.isEmpty();
+	}
+	
+	/**
+	 * Know whether the whole window is damaged.
+	 */
+	boolean isFull() {
+		return full;
+	}
+	
+	/**
+	 * Get the damaged regions, clipped to the given area.
+	 * @param width The width of the area
+	 * @param height The height of the area
+	 */
+	java.util.List<Rectangle> getRegions(int width, int height) {
+		java.util.List<Rectangle> result = new ArrayList<Rectangle>();
+		Rectangle area = new Rectangle(0, 0, width, height);
+		if (full) {
+			result.add(area);
+		} else {
+			for (Rectangle r : regions) {
+				Rectangle clipped = r.intersection(area);
+				if (!clipped.isEmpty()) {
+					result.add(clipped);
+				}
+			}
+		}
+		return result;
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Know whether two regions overlap or are adjacent.
+	 */
+	private static boolean touches(Rectangle a, Rectangle b) {
+		return a.x <= b.x + b.width && b.x <= a.x + a.width && a.y <= b.y + b.height && b.y <= a.y + a.height;
+	}
+}
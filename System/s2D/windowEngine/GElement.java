@@ -4,9 +4,12 @@ import java.awt.*;
 import java.awt.image.*;
 import javax.swing.*;
 import java.util.*;
+import s2D.metricsEngine.*;
 
 /**
- * A displayable element.
+ * A displayable element.<br/>
+ * Each change of an element notifies its observers (its containers, the G Context). To make several changes notify them only once,
+ * they can be done within a batch of the element (beginBatch / endBatch), or within a batch of all the elements (WindowManager.beginBatch / endBatch).
  * @author Guillaume Singland
  * @version 2.0
  */
@@ -15,9 +18,20 @@ public abstract class GElement {
 	private int x, y, z;					// The element's coordinates
 	private int width, height;				// The element's size
 	private Image image;					// The element's image
-	private boolean change;					// Whether the element has been changed since the last image update
+	private boolean change;					// Whether the content of the element has been changed since the last image update
+	private boolean moved;					// Whether the element has been moved since the last image update
+	private Rectangle region;				// The only region changed since the last image update (null for the whole element)
+	private Rectangle damaged;				// The only region changed by the last image update (null for the whole element)
 	private java.util.List<Runnable> observers;		// A list of the observers of this element
 	private int opacity;					// The opacity of the element
+	private boolean immediate;				// Whether the element is painted directly, without any image
+	private GPaint painting;				// How to paint the element, captured at the last image update in immediate mode (null if it has an image)
+	private boolean retained;				// Whether the image has been drawn on in place, by an image update
+	private int batch;					// The nb of batches opened on this element
+	private boolean pending;				// Whether the element has been notified during its batch
+	
+	private static volatile int batches = 0;					// The nb of batches opened on all the elements
+	private static Set<GElement> deferred = new LinkedHashSet<GElement>();	// The elements notified during those batches
 	
 	/////////////////////////////////////////////////
 	
@@ -53,6 +67,7 @@ public abstract class GElement {
 		this.width = width;
 		this.height = height;
 		this.change = true;
+		this.moved = false;
 		this.opacity = 100;
 		this.observers = new ArrayList<Runnable>();
 	}
@@ -64,11 +79,161 @@ public abstract class GElement {
 	 */
 	protected final void notifyChange() {
 		change = true;
+		region = null;
+		notifyObservers();
+	}
+	
+	/**
+	 * Warn this element that only a region of it is changed : its observers then only redraw this region, if the element isn't moved.
+	 * @param x The x position of the region, in the element
+	 * @param y The y position of the region, in the element
+	 * @param width The width of the region
+	 * @param height The height of the region
+	 */
+	protected final void notifyChange(int x, int y, int width, int height) {
+		if (!change) {
+			region = new Rectangle(x, y, width, height);
+		} else if (region != null) {
+			region.add(new Rectangle(x, y, width, height));
+		}
+		change = true;
+		notifyObservers();
+	}
+	
+	/**
+	 * Warn this element to be moved (so that it only needs to be redrawn at its new position, without any image update).
+	 */
+	protected final void notifyMove() {
+		moved = true;
+		notifyObservers();
+	}
+	
+	/**
+	 * Warn the observers of this element, or wait for the end of the batches if there is any.
+	 */
+	private void notifyObservers() {
+		if (batch > 0) {
+			pending = true;
+			return;
+		}
+		if (batches > 0) {
+			synchronized (deferred) {
+				if (batches > 0) {
+					deferred.add(this);
+					return;
+				}
+			}
+		}
+		fireObservers();
+	}
+	
+	/**
+	 * Warn the observers of this element right now.
+	 */
+	private void fireObservers() {
+		Metrics.count(Counter.NOTIFICATIONS, observers.size());
 		for (Runnable observer : observers) {
 			observer.run();
 		}
 	}
 	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Begin a batch of changes on this element : the observers are notified only once, at the end of the batch.<br/>
+	 * The batches can be nested : the observers are notified at the end of the outer one.
+	 */
+	public final void beginBatch() {
+		batch++;
+	}
+	
+	/**
+	 * End a batch of changes on this element, and notify the observers if it has been changed during the batch.
+	 */
+	public final void endBatch() {
+		if (batch == 0) {
+			throw new IllegalStateException("There is no batch to end on this element.");
+		}
+		if (batch == 1 && batches == 0) {
+			endOfBatch();
+		}
+		batch--;
+		if (batch == 0 && pending) {
+			pending = false;
+			notifyObservers();
+		}
+	}
+	
+	/**
+	 * Do some changes in a batch.
+	 * @param changes The changes
+	 */
+	public final void batch(Runnable changes) {
+		beginBatch();
+		try {
+			changes.run();
+		} finally {
+			endBatch();
+		}
+	}
+	
+	/**
+	 * Know whether the notifications of this element are delayed by a batch.
+	 */
+	protected final boolean isBatching() {
+		return batch > 0 || batches > 0;
+	}
+	
+	/**
+	 * Called at the end of the batches, just before the observers are notified : the computations delayed during the batches can be done there.
+	 * Does nothing by default.
+	 */
+	protected void endOfBatch() {
+	
+	}
+	
+	/**
+	 * Begin a batch of changes on all the elements.
+	 */
+	static void beginGlobalBatch() {
+		synchronized (deferred) {
+			batches++;
+		}
+	}
+	
+	/**
+	 * End a batch of changes on all the elements : each element changed during the batches notifies its observers once.<br/>
+	 * The batch lasts until all the notifications are done, so that a container changed by several of its elements is notified only once too.
+	 */
+	static void endGlobalBatch() {
+		synchronized (deferred) {
+			if (batches == 0) {
+				throw new IllegalStateException("There is no batch to end.");
+			}
+			if (batches > 1) {
+				batches--;
+				return;
+			}
+		}
+		while (true) {
+			GElement elt;
+			synchronized (deferred) {
+				if (deferred.isEmpty()) {
+					batches--;
+					return;
+				}
+				elt = deferred.iterator().next();
+			}
+			elt.endOfBatch();
+			synchronized (deferred) {
+				deferred.remove(elt);
+			}
+			elt.fireObservers();
+		}
+	}
+	
+	/////////////////////////////////////////////////
+	
 	/**
 	 * Install a new observer waiting for the notifying of this element.
 	 * @param observer The observer
@@ -85,14 +250,52 @@ public abstract class GElement {
 		observers.remove(observer);
 	}
 	
+	/**
+	 * Know whether the element is observed, by a container or a G Context.
+	 */
+	final boolean isObserved() {
+		return !observers.isEmpty();
+	}
+	
 	/**
 	 * Update the image of the element.
 	 */
 	final void imageUpdate() {
+		damaged = null;
 		if (change) {
-			update();
+			painting = immediate ? capture() : null;
+			if (painting == null) {
+				update();
+				Metrics.count(Counter.RASTERIZATIONS, 1);
+			}
+			if (!moved) {
+				damaged = region;
+			}
 			change = false;
+			region = null;
 		}
+		moved = false;
+	}
+	
+	/**
+	 * Know whether the content of the element has been changed since the last image update.
+	 */
+	final boolean hasChanged() {
+		return change;
+	}
+	
+	/**
+	 * Get the only region changed by the last image update, in the element (null for the whole element).
+	 */
+	final Rectangle getDamaged() {
+		return damaged;
+	}
+	
+	/**
+	 * Know whether the element has been moved since the last image update.
+	 */
+	final boolean hasMoved() {
+		return moved;
 	}
 	
 	/**
@@ -100,6 +303,107 @@ public abstract class GElement {
 	 */
 	protected abstract void update();
 	
+	/**
+	 * Draw the element on a graphics : it is painted directly in immediate mode, else its image is drawn.
+	 * @param g The graphics
+	 * @param x The x position where to draw
+	 * @param y The y position where to draw
+	 */
+	final void draw(Graphics2D g, int x, int y) {
+		if (painting != null) {
+			painting.paint(g, x, y);
+		} else {
+			g.drawImage(image, x, y, null);
+		}
+	}
+	
+	/**
+	 * Capture how to paint the element directly, in immediate mode : the record is painted by the graphic thread, so it must not read the element.<br/>
+	 * The elements able to do so override this method ; the other ones still have an image in immediate mode.
+	 * @return The record, or null to make the image of the element
+	 */
+	protected GPaint capture() {
+		return null;
+	}
+	
+	/**
+	 * Get a cleared surface from the surface pool, where to draw the image of the element.<br/>
+	 * The current image is given back to the pool by setImage, since the graphic thread may still be drawing it.
+	 * @param width The width of the surface
+	 * @param height The height of the surface
+	 */
+	protected final BufferedImage getSurface(int width, int height) {
+		width = Math.max(width, 1);
+		height = Math.max(height, 1);
+		BufferedImage surface = GSurfacePool.acquire(width, height, BufferedImage.TYPE_INT_ARGB);
+		
+		Graphics2D g = surface.createGraphics();
+		g.setComposite(AlphaComposite.Clear);
+		g.fillRect(0, 0, width, height);
+		g.dispose();
+		return surface;
+	}
+	
+	/**
+	 * Get a surface from the pool, holding a copy of an image, to draw on it.
+	 * @param width The width of the surface
+	 * @param height The height of the surface
+	 * @param content The image to copy (its part beyond the surface is ignored)
+	 */
+	protected final BufferedImage getSurface(int width, int height, Image content) {
+		width = Math.max(width, 1);
+		height = Math.max(height, 1);
+		BufferedImage surface = GSurfacePool.acquire(width, height, BufferedImage.TYPE_INT_ARGB);
+		
+		Graphics2D g = surface.createGraphics();
+		g.setComposite(AlphaComposite.Src);
+		g.drawImage(content, 0, 0, null);
+		g.dispose();
+		return surface;
+	}
+	
+	/**
+	 * Get the current image of the element, to draw on it in place : only the regions changed are drawn again, and nothing is copied.<br/>
+	 * The image is retained from then on : the frames published hold a copy of the parts of it they draw, since the graphic thread draws them while it changes.
+	 * The first time, the frame published before may still hold the image itself : null is returned, so that the image is copied once.
+	 * @return The image, or null if it has to be copied (or isn't a surface from the pool)
+	 */
+	protected final BufferedImage getRetainedSurface() {
+		if (!GSurfacePool.contains(image)) {
+			return null;
+		}
+		if (!retained) {
+			retained = true;
+			return null;
+		}
+		return (BufferedImage) image;
+	}
+	
+	/**
+	 * Know whether the image of the element has been drawn on in place, so that it can't be shared with the graphic thread.
+	 */
+	final boolean isRetained() {
+		return retained;
+	}
+	
+	/**
+	 * Drop the image of the element : it is made again at the next image update. The observers aren't notified.
+	 */
+	void discardImage() {
+		setImage(null);
+		change = true;
+	}
+	
+	/**
+	 * Get the current bounds of the element's image (or of the element itself, in immediate mode).
+	 */
+	Rectangle getBounds() {
+		if (image == null) {
+			return new Rectangle(x, y, width, height);
+		}
+		return new Rectangle(x, y, image.getWidth(null), image.getHeight(null));
+	}
+	
 	/**
 	 * Get the image.
 	 */
@@ -108,10 +412,20 @@ public abstract class GElement {
 	}
 	
 	/**
-	 * Set the image.
-	 * @param image The image
+	 * Get how to paint the element, captured at the last image update (null if it has an image).
+	 */
+	GPaint getPainting() {
+		return painting;
+	}
+	
+	/**
+	 * Set the image. The previous image is given back to the surface pool if it comes from it.
+	 * @param image The image (can be null)
 	 */
 	void setImage(Image image) {
+		if (image != this.image && this.image instanceof BufferedImage) {
+			GSurfacePool.release((BufferedImage) this.image);
+		}
 		this.image = image;
 	}
 	
@@ -131,6 +445,13 @@ public abstract class GElement {
 	
 	/////////////////////////////////////////////////
 	
+	/**
+	 * Know whether the element is in immediate mode or not.
+	 */
+	public final boolean isImmediate() {
+		return immediate;
+	}
+	
 	/**
 	 * Get the X coordinate.
 	 */
@@ -172,7 +493,7 @@ public abstract class GElement {
 	 */
 	public void setX(int x) {
 		this.x = x;
-		notifyChange();
+		notifyMove();
 	}
 	
 	/**
@@ -181,7 +502,7 @@ public abstract class GElement {
 	 */
 	public void setY(int y) {
 		this.y = y;
-		notifyChange();
+		notifyMove();
 	}
 	
 	/**
@@ -190,8 +511,10 @@ public abstract class GElement {
 	 * @param y The new y coordinate
 	 */
 	public void setXY(int x, int y) {
+		beginBatch();
 		setX(x);
 		setY(y);
+		endBatch();
 	}
 	
 	/**
@@ -200,7 +523,7 @@ public abstract class GElement {
 	 */
 	public void setZ(int z) {
 		this.z = z;
-		notifyChange();
+		notifyMove();
 	}
 	
 	/**
@@ -210,9 +533,27 @@ public abstract class GElement {
 	 * @param z The new z coordinate
 	 */
 	public void setXYZ(int x, int y, int z) {
+		beginBatch();
 		setX(x);
 		setY(y);
 		setZ(z);
+		endBatch();
+	}
+	
+	/**
+	 * Set the immediate mode.<br/>
+	 * In immediate mode, the element has no image : it is painted directly where it is drawn, from a record of its state captured at each image update.
+	 * It costs less for simple elements, but more for the ones which are expensive to paint.
+	 * @param immediate Whether the element is in immediate mode or not
+	 */
+	protected void setImmediate(boolean immediate) {
+		if (immediate != this.immediate) {
+			this.immediate = immediate;
+			if (immediate) {
+				setImage(null);
+			}
+			notifyChange();
+		}
 	}
 	
 	/**
@@ -0,0 +1,136 @@
+package s2D.windowEngine;
+
+import java.awt.*;
+import java.awt.image.*;
+import java.util.*;
+import s2D.metricsEngine.*;
+
+/**
+ * A render snapshot of a G Context, published by the scene thread and drawn by the graphic thread.<br/>
+ * It holds the regions to redraw and, for each of them, what to draw there : once published, it is never modified,
+ * so that the graphic thread can draw it without any lock while the scene thread changes the elements.
+ * It never refers to the elements : only to their images, or to the records of their state captured by the scene thread in immediate mode.
+ * @author Guillaume Singland
+ * @version 2.0
+ */
+class GFrame {
+	
+	private java.util.List<Rectangle> regions;		// The regions to redraw
+	private java.util.List<Integer> starts;			// The index of the first item of each region
+	private java.util.List<Item> items;			// What to draw, region after region
+	private java.util.List<BufferedImage> retired;		// The surfaces released since the previous frame
+	private int scrollX, scrollY;				// The shift of the pixels already drawn, before drawing the regions
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Build an empty frame.
+	 * @param retired The surfaces released since the previous frame
+	 * @param scrollX The move of the camera since the previous frame, along x : the pixels drawn are shifted by -scrollX
+	 * @param scrollY The move of the camera since the previous frame, along y : the pixels drawn are shifted by -scrollY
+	 */
+	GFrame(java.util.List<BufferedImage> retired, int scrollX, int scrollY) {
+		this.regions = new ArrayList<Rectangle>();
+		this.starts = new ArrayList<Integer>();
+		this.items = new ArrayList<Item>();
+		this.retired = retired;
+		this.scrollX = scrollX;
+		this.scrollY = scrollY;
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Begin a new region to redraw.
+	 * @param r The region
+	 */
+	void addRegion(Rectangle r) {
+		regions.add(r);
+		starts.add(items.size());
+	}
+	
+	/**
+	 * Add something to draw in the last region.
+	 * @param image The image to draw (ignored if there is a painting)
+	 * @param painting How to paint the element, in immediate mode (null if it has an image)
+	 * @param x The x position
+	 * @param y The y position
+	 */
+	void addItem(Image image, GPaint painting, int x, int y) {
+		items.add(new Item(image, painting, x, y));
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Draw the frame on a render target.
+	 * @param w The render target
+	 */
+	void draw(RenderTarget w) {
+		if (scrollX != 0 || scrollY != 0) {
+			w.scroll(scrollX, scrollY);
+		}
+		for (int i = 0; i < regions.size(); i++) {
+			int end = (i + 1 < regions.size()) ? starts.get(i + 1) : items.size();
+			w.clear(regions.get(i));
+			for (int j = starts.get(i); j < end; j++) {
+				Item item = items.get(j);
+				if (item.painting != null) {
+					w.draw(item.painting, item.x, item.y);
+				} else {
+					w.draw(item.image, item.x, item.y);
+				}
+			}
+		}
+		w.setClip(null);
+		Metrics.count(Counter.BLITS, items.size());
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Get the regions to redraw.
+	 */
+	java.util.List<Rectangle> getRegions() {
+		return regions;
+	}
+	
+	/**
+	 * Get the move of the camera since the previous frame, along x.
+	 */
+	int getScrollX() {
+		return scrollX;
+	}
+	
+	/**
+	 * Get the move of the camera since the previous frame, along y.
+	 */
+	int getScrollY() {
+		return scrollY;
+	}
+	
+	/**
+	 * Get the surfaces released since the previous frame.<br/>
+	 * They can be reused once the graphic thread has finished drawing the previous frame.
+	 */
+	java.util.List<BufferedImage> getRetired() {
+		return retired;
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Something to draw.
+	 */
+	private static class Item {
+		private Image image;
+		private GPaint painting;
+		private int x, y;
+		public Item(Image image, GPaint painting, int x, int y) {
+			this.image = image;
+			this.painting = painting;
+			this.x = x;
+			this.y = y;
+		}
+	}
+}
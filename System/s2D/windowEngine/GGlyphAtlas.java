@@ -0,0 +1,291 @@
+package s2D.windowEngine;
+
+import java.awt.*;
+import java.awt.font.*;
+import java.awt.image.*;
+import java.util.*;
+import s2D.metricsEngine.*;
+
+/**
+ * A shared atlas of glyphs, where the G Texts are drawn from.<br/>
+ * Each glyph of a face (a font, an antialiasing and a color) is rasterized once in a page of the atlas :
+ * a text is then drawn by blitting its glyphs one after the other, at the advances given by the metrics of the font.
+ * The metrics of each font are cached too, so that measuring a text allocates nothing.<br/>
+ * The texts needing a complex layout (ligatures, combining characters, right to left scripts) can't be drawn glyph by glyph : they are drawn as a whole.
+ * @author Guillaume Singland
+ * @version 2.0
+ */
+public final class GGlyphAtlas {
+	
+	/////////// PARAMETERS //////////////////////////
+	
+	private final static int PAGE_SIZE = 256;		// The size of a page (in pixels)
+	private final static int MAX_PAGES = 16;		// The max nb of pages, beyond which the atlas is emptied
+	private final static int PADDING = 1;			// The space left around each glyph (in pixels)
+	
+	/////////////////////////////////////////////////
+	
+	private static Graphics2D scratch;							// A graphics, only to get the font metrics
+	private static Map<Font, FontMetrics> metrics = new HashMap<Font, FontMetrics>();	// The metrics of each font
+	private static Map<Face, Map<Character, Glyph>> faces = new HashMap<Face, Map<Character, Glyph>>();	// The glyphs of each face
+	private static java.util.List<BufferedImage> pages = new ArrayList<BufferedImage>();	// The pages of the atlas
+	private static int shelfX, shelfY, shelfHeight;						// The free place in the last page
+	private static Face lookup = new Face(null, false, null);				// The face looked for, reused
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * No instance of the atlas.
+	 */
+	private GGlyphAtlas() { }
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Get the metrics of a font ; they are cached, so getting them again allocates nothing.
+	 * @param font The font
+	 */
+	public static synchronized FontMetrics getMetrics(Font font) {
+		FontMetrics fm = metrics.get(font);
+		if (fm == null) {
+			if (scratch == null) {
+				scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+			}
+			fm = scratch.getFontMetrics(font);
+			metrics.put(font, fm);
+		}
+		return fm;
+	}
+	
+	/**
+	 * Draw a text with the glyphs of the atlas.
+	 * @param g The graphics where to draw
+	 * @param text The text
+	 * @param font The font
+	 * @param antialiasing Whether the text is antialiased or not
+	 * @param color The color
+	 * @param x The x position of the beginning of the text
+	 * @param y The y position of the baseline
+	 */
+	static synchronized void drawString(Graphics2D g, String text, Font font, boolean antialiasing, Color color, int x, int y) {
+		char[] chars = text.toCharArray();
+		if (requiresLayout(chars)) {
+			// Drawn as a whole
+			g.setColor(color);
+			g.setFont(font);
+			if (antialiasing) {
+				g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+			}
+			g.drawString(text, x, y);
+			return;
+		}
+		
+		Map<Character, Glyph> glyphs = getGlyphs(font, antialiasing, color);
+		FontMetrics fm = getMetrics(font);
+		for (char c : chars) {
+			Glyph glyph = glyphs.get(c);
+			if (glyph == null) {
+				glyph = rasterize(c, font, antialiasing, color);
+				if (faces.get(lookup) != glyphs) {
+					// The atlas has been emptied to make room
+					glyphs = getGlyphs(font, antialiasing, color);
+				}
+				glyphs.put(c, glyph);
+			}
+			blit(g, glyph, x, y);
+			x += fm.charWidth(c);
+		}
+	}
+	
+	/**
+	 * Draw a single character with the glyphs of the atlas.
+	 * @param g The graphics where to draw
+	 * @param c The character (not part of a surrogate pair)
+	 * @param font The font
+	 * @param antialiasing Whether the character is antialiased or not
+	 * @param color The color
+	 * @param x The x position of the pen
+	 * @param y The y position of the baseline
+	 */
+	static synchronized void drawChar(Graphics2D g, char c, Font font, boolean antialiasing, Color color, int x, int y) {
+		Map<Character, Glyph> glyphs = getGlyphs(font, antialiasing, color);
+		Glyph glyph = glyphs.get(c);
+		if (glyph == null) {
+			glyph = rasterize(c, font, antialiasing, color);
+			getGlyphs(font, antialiasing, color).put(c, glyph);
+		}
+		blit(g, glyph, x, y);
+	}
+	
+	/**
+	 * Know whether some characters need a complex layout, so that they can't be drawn glyph by glyph.
+	 * @param chars The characters
+	 */
+	static boolean requiresLayout(char[] chars) {
+		if (Font.textRequiresLayout(chars, 0, chars.length)) {
+			return true;
+		}
+		for (char c : chars) {
+			if (Character.isSurrogate(c)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Empty the atlas and the cache of the metrics.
+	 */
+	public static synchronized void clear() {
+		metrics.clear();
+		faces.clear();
+		pages.clear();
+		shelfX = 0;
+		shelfY = 0;
+		shelfHeight = 0;
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Get the nb of glyphs in the atlas.
+	 */
+	public static synchronized int getGlyphCount() {
+		int count = 0;
+		for (Map<Character, Glyph> glyphs : faces.values()) {
+			count += glyphs.size();
+		}
+		return count;
+	}
+	
+	/**
+	 * Get the nb of pages of the atlas.
+	 */
+	public static synchronized int getPageCount() {
+		return pages.size();
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Get the glyphs of a face, which is created if needed.
+	 */
+	private static Map<Character, Glyph> getGlyphs(Font font, boolean antialiasing, Color color) {
+		lookup.font = font;
+		lookup.antialiasing = antialiasing;
+		lookup.color = color;
+		Map<Character, Glyph> glyphs = faces.get(lookup);
+		if (glyphs == null) {
+			glyphs = new HashMap<Character, Glyph>();
+			faces.put(new Face(font, antialiasing, color), glyphs);
+		}
+		return glyphs;
+	}
+	
+	/**
+	 * Draw a glyph of the atlas.
+	 */
+	private static void blit(Graphics2D g, Glyph glyph, int x, int y) {
+		if (glyph.width > 0) {
+			int dx = x + glyph.offsetX;
+			int dy = y + glyph.offsetY;
+			g.drawImage(glyph.page, dx, dy, dx + glyph.width, dy + glyph.height,
+					glyph.x, glyph.y, glyph.x + glyph.width, glyph.y + glyph.height, null);
+		}
+	}
+	
+	/**
+	 * Rasterize a glyph in the atlas.
+	 */
+	private static Glyph rasterize(char c, Font font, boolean antialiasing, Color color) {
+		FontRenderContext frc = new FontRenderContext(null, antialiasing, false);
+		Rectangle bounds = font.createGlyphVector(frc, new char[] {c}).getPixelBounds(frc, 0, 0);
+		if (bounds.isEmpty()) {
+			return new Glyph(null, 0, 0, 0, 0, 0, 0);
+		}
+		
+		// Find a place on the shelves
+		int width = bounds.width + 2 * PADDING;
+		int height = bounds.height + 2 * PADDING;
+		if (width > PAGE_SIZE || height > PAGE_SIZE) {
+			throw new IllegalArgumentException("The glyphs of the font " + font.getName() + " are too big for the atlas.");
+		}
+		if (pages.isEmpty() || shelfX + width > PAGE_SIZE) {
+			shelfX = 0;
+			shelfY += shelfHeight;
+			shelfHeight = 0;
+		}
+		if (pages.isEmpty() || shelfY + height > PAGE_SIZE) {
+			if (pages.size() == MAX_PAGES) {
+				clear();
+			}
+			BufferedImage page = new BufferedImage(PAGE_SIZE, PAGE_SIZE, BufferedImage.TYPE_INT_ARGB);
+			Metrics.count(Counter.RASTER_BYTES, (long) PAGE_SIZE * PAGE_SIZE * 4);
+			pages.add(page);
+			shelfX = 0;
+			shelfY = 0;
+			shelfHeight = 0;
+		}
+		BufferedImage page = pages.get(pages.size() - 1);
+		int x = shelfX + PADDING;
+		int y = shelfY + PADDING;
+		shelfX += width;
+		shelfHeight = Math.max(shelfHeight, height);
+		
+		// Draw the glyph
+		Graphics2D g = page.createGraphics();
+		g.setClip(x, y, bounds.width, bounds.height);
+		g.setColor(color);
+		g.setFont(font);
+		if (antialiasing) {
+			g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		}
+		g.drawString(String.valueOf(c), x - bounds.x, y - bounds.y);
+		g.dispose();
+		return new Glyph(page, x, y, bounds.width, bounds.height, bounds.x, bounds.y);
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * A face : a font, drawn with an antialiasing and a color.
+	 */
+	private static class Face {
+		private Font font;
+		private boolean antialiasing;
+		private Color color;
+		public Face(Font font, boolean antialiasing, Color color) {
+			this.font = font;
+			this.antialiasing = antialiasing;
+			this.color = color;
+		}
+		public boolean equals(Object o) {
+			if (!(o instanceof Face)) {
+				return false;
+			}
+			Face f = (Face) o;
+			return font.equals(f.font) && antialiasing == f.antialiasing && color.equals(f.color);
+		}
+		public int hashCode() {
+			return (font.hashCode() * 31 + color.hashCode()) * 2 + (antialiasing ? 1 : 0);
+		}
+	}
+	
+	/**
+	 * A glyph in the atlas : where it is in its page, and where it is drawn from the pen position.
+	 */
+	private static class Glyph {
+		private BufferedImage page;
+		private int x, y, width, height;
+		private int offsetX, offsetY;
+		public Glyph(BufferedImage page, int x, int y, int width, int height, int offsetX, int offsetY) {
+			this.page = page;
+			this.x = x;
+			this.y = y;
+			this.width = width;
+			this.height = height;
+			this.offsetX = offsetX;
+			this.offsetY = offsetY;
+		}
+	}
+}
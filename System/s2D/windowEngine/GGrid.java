@@ -0,0 +1,198 @@
+package s2D.windowEngine;
+
+import java.awt.*;
+import java.util.*;
+
+/**
+ * A uniform grid indexing some objects by their bounds, so that the objects within an area or under a point are found without visiting the others.<br/>
+ * The objects covering too many cells are kept apart, and are always considered.
+ * @author Guillaume Singland
+ * @version 2.0
+ */
+class GGrid<T> {
+	
+	/////////// PARAMETERS //////////////////////////
+	
+	private final static int CELL_SIZE = 128;		// The size of a cell (in pixels)
+	private final static int MAX_CELLS = 64;		// The max nb of cells an object can cover before being kept apart
+	
+	/////////////////////////////////////////////////
+	
+	private Map<Long, java.util.List<T>> cells;		// The objects of each non-empty cell
+	private Set<T> large;					// The objects covering too many cells
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Build an empty grid.
+	 */
+	GGrid() {
+		cells = new HashMap<Long, java.util.List<T>>();
+		large = new LinkedHashSet<T>();
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Add an object.
+	 * @param o The object
+	 * @param r The bounds of the object
+	 */
+	void add(T o, Rectangle r) {
+		if (r.isEmpty()) {
+			return;
+		}
+		if (isLarge(r)) {
+			large.add(o);
+			return;
+		}
+		for (int i = cell(r.x); i <= cell(r.x + r.width - 1); i++) {
+			for (int j = cell(r.y); j <= cell(r.y + r.height - 1); j++) {
+				Long key = key(i, j);
+				java.util.List<T> cell = cells.get(key);
+				if (cell == null) {
+					cell = new ArrayList<T>(4);
+					cells.put(key, cell);
+				}
+				cell.add(o);
+			}
+		}
+	}
+	
+	/**
+	 * Remove an object.
+	 * @param o The object
+	 * @param r The bounds the object has been added with
+	 */
+	void remove(T o, Rectangle r) {
+		if (r.isEmpty()) {
+			return;
+		}
+		if (isLarge(r)) {
+			large.remove(o);
+			return;
+		}
+		for (int i = cell(r.x); i <= cell(r.x + r.width - 1); i++) {
+			for (int j = cell(r.y); j <= cell(r.y + r.height - 1); j++) {
+				Long key = key(i, j);
+				java.util.List<T> cell = cells.get(key);
+				if (cell != null) {
+					cell.remove(o);
+					if (cell.isEmpty()) {
+						cells.remove(key);
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Move an object.
+	 * @param o The object
+	 * @param from The bounds the object has been added with (can be null if it hasn't been added)
+	 * @param to The new bounds of the object
+	 */
+	void move(T o, Rectangle from, Rectangle to) {
+		if (from != null) {
+			if (cellsEqual(from, to)) {
+				return;
+			}
+			remove(o, from);
+		}
+		add(o, to);
+	}
+	
+	/**
+	 * Remove all the objects.
+	 */
+	void clear() {
+		cells.clear();
+		large.clear();
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Get the objects which may intersect an area.
+	 * @param r The area
+	 * @param result The set where to add the objects
+	 */
+	void query(Rectangle r, Set<T> result) {
+		result.addAll(large);
+		if (r.isEmpty()) {
+			return;
+		}
+		int minI = cell(r.x);
+		int maxI = cell(r.x + r.width - 1);
+		int minJ = cell(r.y);
+		int maxJ = cell(r.y + r.height - 1);
+		if ((long) (maxI - minI + 1) * (maxJ - minJ + 1) > cells.size()) {
+			// The area covers more cells than there are non-empty ones
+			for (Map.Entry<Long, java.util.List<T>> e : cells.entrySet()) {
+				int i = (int) (e.getKey() >> 32);
+				int j = (int) (long) e.getKey();
+				if (i >= minI && i <= maxI && j >= minJ && j <= maxJ) {
+					result.addAll(e.getValue());
+				}
+			}
+		} else {
+			for (int i = minI; i <= maxI; i++) {
+				for (int j = minJ; j <= maxJ; j++) {
+					java.util.List<T> cell = cells.get(key(i, j));
+					if (cell != null) {
+						result.addAll(cell);
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Get the objects which may be under a point.
+	 * @param x The x position
+	 * @param y The y position
+	 * @param result The set where to add the objects
+	 */
+	void query(int x, int y, Set<T> result) {
+		result.addAll(large);
+		java.util.List<T> cell = cells.get(key(cell(x), cell(y)));
+		if (cell != null) {
+			result.addAll(cell);
+		}
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Get the cell index of a coordinate.
+	 */
+	private static int cell(int coordinate) {
+		return Math.floorDiv(coordinate, CELL_SIZE);
+	}
+	
+	/**
+	 * Get the key of a cell.
+	 */
+	private static Long key(int i, int j) {
+		return ((long) i << 32) | (j & 0xffffffffL);
+	}
+	
+	/**
+	 * Know whether some bounds cover too many cells.
+	 */
+	private static boolean isLarge(Rectangle r) {
+		long nb = (long) (cell(r.x + r.width - 1) - cell(r.x) + 1) * (cell(r.y + r.height - 1) - cell(r.y) + 1);
+		return nb > MAX_CELLS;
+	}
+	
+	/**
+	 * Know whether two bounds cover the same cells.
+	 */
+	private static boolean cellsEqual(Rectangle a, Rectangle b) {
+		if (a.isEmpty() || b.isEmpty()) {
+			return a.isEmpty() && b.isEmpty();
+		}
+		return cell(a.x) == cell(b.x) && cell(a.y) == cell(b.y)
+				&& cell(a.x + a.width - 1) == cell(b.x + b.width - 1) && cell(a.y + a.height - 1) == cell(b.y + b.height - 1);
+	}
+}
@@ -41,13 +41,23 @@ public class GImage extends GElement {
 	/////////////////////////////////////////////////
 	
 	/**
-	 * Perform the image update.
+	 * Perform the image update.<br/>
+	 * The image is the cached target itself, so nothing is copied.
 	 */
 	protected void update() {
-		Image image = new BufferedImage(getWidth(), getHeight(), BufferedImage.TYPE_INT_ARGB);
-		Graphics2D g = (Graphics2D) image.getGraphics();
-		g.drawImage(target, 0, 0, null);
-		setImage(image);
+		setImage(target);
+	}
+	
+	/**
+	 * Capture how to paint the image directly : the cached target is never changed, so it is kept as it is.
+	 */
+	protected GPaint capture() {
+		final Image target = this.target;
+		return new GPaint() {
+			public void paint(Graphics2D g, int x, int y) {
+				g.drawImage(target, x, y, null);
+			}
+		};
 	}
 	
 	//////////////////////////////////////////////////////
@@ -66,6 +76,14 @@ public class GImage extends GElement {
 		return target;
 	}
 	
+	/**
+	 * Set the immediate mode.
+	 * @param immediate Whether the image is painted directly or not
+	 */
+	public void setImmediate(boolean immediate) {
+		super.setImmediate(immediate);
+	}
+	
 	/**
 	 * Set the path.
 	 * @param path The new path
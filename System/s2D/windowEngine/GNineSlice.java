@@ -0,0 +1,202 @@
+package s2D.windowEngine;
+
+import java.awt.*;
+import java.awt.image.*;
+import s2D.*;
+
+/**
+ * A displayable nine-slice frame : an image cut in nine regions by its borders, drawn at any size.<br/>
+ * The corners are drawn as they are, the edges and the center are tiled (or stretched) to fill the rest.
+ * The nine regions are views on the image, made once : drawing the frame is at most nine blits in one surface, whatever its size,
+ * and resizing it only draws it again, without building anything.
+ * @author Guillaume Singland
+ * @version 2.0
+ */
+public class GNineSlice extends GElement {
+	
+	private String path;			// The path of the image file, from the Gs directory (null if not cached)
+	private int border;			// The size of the borders of the image
+	private boolean stretched;		// Whether the edges and the center are stretched, or tiled
+	private BufferedImage[] slices;		// The view on each region, from left to right and from top to bottom
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Build a nine-slice frame from a cached image.
+	 * @param path The path of the image file, from the Gs directory
+	 * @param x The x location of the left top corner
+	 * @param y The y location of the left top corner
+	 * @param z The display priority, from 0
+	 * @param width The width of the frame, borders included
+	 * @param height The height of the frame, borders included
+	 * @param border The size of the borders of the image
+	 */
+	public GNineSlice(String path, int x, int y, int z, int width, int height, int border) {
+		this((BufferedImage) Game.DATA.getFromCache(path), x, y, z, width, height, border);
+		this.path = path;
+	}
+	
+	/**
+	 * Build a nine-slice frame from an image.
+	 * @param image The image
+	 * @param x The x location of the left top corner
+	 * @param y The y location of the left top corner
+	 * @param z The display priority, from 0
+	 * @param width The width of the frame, borders included
+	 * @param height The height of the frame, borders included
+	 * @param border The size of the borders of the image
+	 */
+	public GNineSlice(BufferedImage image, int x, int y, int z, int width, int height, int border) {
+		super(x, y, z, width, height);
+		if (border < 0) {
+			throw new IllegalArgumentException("The border must be positive.");
+		}
+		this.border = border;
+		setSlices(image);
+		update();
+	}
+	
+	/**
+	 * Cut the image in its nine regions.
+	 * @param image The image
+	 */
+	private void setSlices(BufferedImage image) {
+		if (image == null) {
+			throw new IllegalArgumentException("The image can't be null.");
+		}
+		int middleWidth = image.getWidth() - 2 * border;
+		int middleHeight = image.getHeight() - 2 * border;
+		if (middleWidth <= 0 || middleHeight <= 0) {
+			throw new IllegalArgumentException("The borders are too big for the image.");
+		}
+		
+		int[] xs = {0, border, border + middleWidth};
+		int[] ys = {0, border, border + middleHeight};
+		int[] widths = {border, middleWidth, border};
+		int[] heights = {border, middleHeight, border};
+		slices = new BufferedImage[9];
+		for (int i = 0; i < 9; i++) {
+			if (widths[i % 3] > 0 && heights[i / 3] > 0) {
+				slices[i] = image.getSubimage(xs[i % 3], ys[i / 3], widths[i % 3], heights[i / 3]);
+			}
+		}
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Perform the image update : the frame is drawn in one surface, one blit per region.
+	 */
+	protected void update() {
+		BufferedImage image = getSurface(getWidth(), getHeight());
+		Graphics2D g = image.createGraphics();
+		paint(g, 0, 0);
+		g.dispose();
+		setImage(image);
+	}
+	
+	/**
+	 * Paint the frame on a graphics.
+	 * @param g The graphics
+	 * @param x The x position where to paint
+	 * @param y The y position where to paint
+	 */
+	private void paint(Graphics2D g, int x, int y) {
+		int width = getWidth();
+		int height = getHeight();
+		
+		// The borders are shrunk if the frame is smaller than them
+		int left = Math.min(border, width / 2);
+		int top = Math.min(border, height / 2);
+		int right = Math.min(border, width - left);
+		int bottom = Math.min(border, height - top);
+		int[] xs = {x, x + left, x + width - right};
+		int[] ys = {y, y + top, y + height - bottom};
+		int[] widths = {left, width - left - right, right};
+		int[] heights = {top, height - top - bottom, bottom};
+		
+		Paint paint = g.getPaint();
+		for (int i = 0; i < 9; i++) {
+			int w = widths[i % 3];
+			int h = heights[i / 3];
+			if (slices[i] == null || w <= 0 || h <= 0) {
+				continue;
+			}
+			int sx = xs[i % 3];
+			int sy = ys[i / 3];
+			boolean corner = (i % 3 != 1 && i / 3 != 1);
+			if (corner) {
+				// A shrunk corner keeps its outer side
+				int ox = (i % 3 == 0) ? 0 : slices[i].getWidth() - w;
+				int oy = (i / 3 == 0) ? 0 : slices[i].getHeight() - h;
+				g.drawImage(slices[i], sx, sy, sx + w, sy + h, ox, oy, ox + w, oy + h, null);
+			} else if (stretched) {
+				g.drawImage(slices[i], sx, sy, w, h, null);
+			} else {
+				// The texture is anchored at the top left corner of the region
+				g.setPaint(new TexturePaint(slices[i], new Rectangle(sx, sy, slices[i].getWidth(), slices[i].getHeight())));
+				g.fillRect(sx, sy, w, h);
+			}
+		}
+		g.setPaint(paint);
+	}
+	
+	//////////////////////////////////////////////////////
+	
+	/**
+	 * Get the path of the image file (null if the image isn't cached).
+	 */
+	public String getPath() {
+		return path;
+	}
+	
+	/**
+	 * Get the size of the borders of the image.
+	 */
+	public int getBorder() {
+		return border;
+	}
+	
+	/**
+	 * Know whether the edges and the center are stretched, or tiled.
+	 */
+	public boolean isStretched() {
+		return stretched;
+	}
+	
+	/**
+	 * Set the size : the frame is drawn again only once.
+	 * @param width The new width, borders included
+	 * @param height The new height, borders included
+	 */
+	public void setSize(int width, int height) {
+		beginBatch();
+		setWidth(width);
+		setHeight(height);
+		endBatch();
+	}
+	
+	/**
+	 * Set the path of the image file.
+	 * @param path The new path, from the Gs directory
+	 */
+	public void setPath(String path) {
+		if (path == null) {
+			throw new IllegalArgumentException("The path can't be null.");
+		}
+		if (!path.equals(this.path)) {
+			setSlices((BufferedImage) Game.DATA.getFromCache(path));
+			this.path = path;
+			notifyChange();
+		}
+	}
+	
+	/**
+	 * Set whether the edges and the center are stretched, or tiled.
+	 * @param stretched Whether the edges and the center are stretched
+	 */
+	public void setStretched(boolean stretched) {
+		this.stretched = stretched;
+		notifyChange();
+	}
+}
@@ -2,6 +2,7 @@ package s2D.windowEngine;
 
 import java.awt.*;
 import java.awt.image.*;
+import java.awt.geom.*;
 
 /**
  * A displayable oval.
@@ -32,18 +33,9 @@ public class GOval extends GShape {
 	/////////////////////////////////////////////////
 	
 	/**
-	 * Perform the image update.
+	 * Get the outline of the oval.
 	 */
-	protected void update() {
-		Image image = new BufferedImage(getWidth(), getHeight(), BufferedImage.TYPE_INT_ARGB);
-		Graphics2D g = (Graphics2D) image.getGraphics();
-		if (getColor() != null) {
-			g.setColor(getColor());
-			if (isAntialiased()) {
-				g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-			}
-			g.fillOval(0, 0, getWidth()-1, getHeight()-1);
-		}
-		setImage(image);
+	protected Shape getShape() {
+		return new Ellipse2D.Float(0, 0, getWidth()-1, getHeight()-1);
 	}
 }
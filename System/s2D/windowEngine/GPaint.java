@@ -0,0 +1,20 @@
+package s2D.windowEngine;
+
+import java.awt.*;
+
+/**
+ * A record of how to paint an element in immediate mode, captured by the scene thread at the image update of the element.<br/>
+ * It must not depend on the element anymore : it is painted by the graphic thread, while the scene thread changes the element.
+ * @author Guillaume Singland
+ * @version 2.0
+ */
+public interface GPaint {
+
+	/**
+	 * Paint on a graphics ; the state of the graphics must be left unchanged, except its color.
+	 * @param g The graphics
+	 * @param x The x position where to paint
+	 * @param y The y position where to paint
+	 */
+	public void paint(Graphics2D g, int x, int y);
+}
@@ -30,19 +30,10 @@ public class GPolygon extends GShape {
 	/////////////////////////////////////////////////
 	
 	/**
-	 * Perform the image update.
+	 * Get the outline of the polygon.
 	 */
-	protected void update() {
-		Image image = new BufferedImage(getWidth(), getHeight(), BufferedImage.TYPE_INT_ARGB);
-		Graphics2D g = (Graphics2D) image.getGraphics();
-		if (getColor() != null) {
-			g.setColor(getColor());
-			if (isAntialiased()) {
-				g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-			}
-			g.fillPolygon(polygon);
-		}
-		setImage(image);
+	protected Shape getShape() {
+		return new Polygon(polygon.xpoints, polygon.ypoints, polygon.npoints);
 	}
 	
 	//////////////////////////////////////////////////////
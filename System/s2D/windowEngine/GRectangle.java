@@ -27,18 +27,9 @@ public class GRectangle extends GShape {
 	/////////////////////////////////////////////////
 	
 	/**
-	 * Perform the image update.
+	 * Get the outline of the rectangle.
 	 */
-	protected void update() {
-		Image image = new BufferedImage(getWidth(), getHeight(), BufferedImage.TYPE_INT_ARGB);
-		Graphics2D g = (Graphics2D) image.getGraphics();
-		if (getColor() != null) {
-			g.setColor(getColor());
-			if (isAntialiased()) {
-				g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-			}
-			g.fillRect(0, 0, getWidth()-1, getHeight()-1);
-		}
-		setImage(image);
+	protected Shape getShape() {
+		return new Rectangle(0, 0, getWidth()-1, getHeight()-1);
 	}
 }
@@ -2,6 +2,7 @@ package s2D.windowEngine;
 
 import java.awt.*;
 import java.awt.image.*;
+import java.awt.geom.*;
 
 /**
  * A displayable rounded-corner rectangle.
@@ -49,19 +50,10 @@ public class GRoundedRectangle extends GShape {
 	/////////////////////////////////////////////////
 	
 	/**
-	 * Perform the image update.
+	 * Get the outline of the rounded rectangle.
 	 */
-	protected void update() {
-		Image image = new BufferedImage(getWidth(), getHeight(), BufferedImage.TYPE_INT_ARGB);
-		Graphics2D g = (Graphics2D) image.getGraphics();
-		if (getColor() != null) {
-			g.setColor(getColor());
-			if (isAntialiased()) {
-				g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-			}
-			g.fillRoundRect(0, 0, getWidth()-1, getHeight()-1, arcWidth, arcHeight);
-		}
-		setImage(image);
+	protected Shape getShape() {
+		return new RoundRectangle2D.Float(0, 0, getWidth()-1, getHeight()-1, arcWidth, arcHeight);
 	}
 	
 	/////////////////////////////////////////////////
@@ -1,6 +1,7 @@
 package s2D.windowEngine;
 
 import java.awt.*;
+import java.awt.image.*;
 
 /**
  * A displayable shape.
@@ -50,6 +51,51 @@ public abstract class GShape extends GElement {
 	
 	//////////////////////////////////////////////////////
 	
+	/**
+	 * Perform the image update.
+	 */
+	protected void update() {
+		BufferedImage image = getSurface(getWidth(), getHeight());
+		Graphics2D g = image.createGraphics();
+		capture().paint(g, 0, 0);
+		g.dispose();
+		setImage(image);
+	}
+	
+	/**
+	 * Capture how to paint the shape directly : its color, its antialiasing and a new outline.
+	 */
+	protected GPaint capture() {
+		final Color color = this.color;
+		final boolean antialiasing = this.antialiasing;
+		final Shape shape = getShape();
+		return new GPaint() {
+			public void paint(Graphics2D g, int x, int y) {
+				if (color != null) {
+					Object hint = g.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+					g.setColor(color);
+					if (antialiasing) {
+						g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+					}
+					g.translate(x, y);
+					g.fill(shape);
+					g.translate(-x, -y);
+					if (hint != null) {
+						g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, hint);
+					}
+				}
+			}
+		};
+	}
+	
+	/**
+	 * Get the outline of the shape, from the left top corner of the element.<br/>
+	 * A new outline is made at each call, so that it can be kept while the shape changes.
+	 */
+	protected abstract Shape getShape();
+	
+	//////////////////////////////////////////////////////
+	
 	/**
 	 * Get the color.
 	 */
@@ -64,6 +110,14 @@ public abstract class GShape extends GElement {
 		return antialiasing;
 	}
 	
+	/**
+	 * Set the immediate mode.
+	 * @param immediate Whether the shape is painted directly or not
+	 */
+	public void setImmediate(boolean immediate) {
+		super.setImmediate(immediate);
+	}
+	
 	/**
 	 * Set the color.
 	 */
@@ -0,0 +1,246 @@
+package s2D.windowEngine;
+
+import java.awt.*;
+import java.util.*;
+
+/**
+ * A displayable animated sprite, playing frames of a sprite sheet, each for its own duration.<br/>
+ * The animation is driven by a clock (typically the time of the scene) : it shows the frame due at the time it is given,
+ * and is only changed when the frame due is another one. Switching to a frame just makes the image of the sprite the shared view on this frame,
+ * so that advancing the animation allocates nothing and copies nothing : many sprites can be played at once.
+ * @author Guillaume Singland
+ * @version 2.0
+ */
+public class GSprite extends GElement {
+	
+	private GSpriteSheet sheet;	// The sheet of the frames
+	private int[] frames;		// The nb in the sheet of each frame of the animation
+	private long[] ends;		// The time when each frame ends, from the beginning of the animation (in ns)
+	private int count;		// The nb of frames of the animation
+	private boolean loop;		// Whether the animation is looped or not (if not, it stays on its last frame)
+	private long start;		// The time of the clock when the animation began (in ns)
+	private long position;		// The time elapsed since the beginning of the animation (in ns)
+	private int frameID;		// The nb of the frame shown, beginning from 0 (-1 if there is none)
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Build a sprite, without any frame.
+	 * @param sheet The sheet of the frames
+	 * @param x The x location of the left top corner
+	 * @param y The y location of the left top corner
+	 * @param z The display priority, from 0
+	 * @param loop Whether the animation is looped or not (if not, it stays on its last frame)
+	 */
+	public GSprite(GSpriteSheet sheet, int x, int y, int z, boolean loop) {
+		super(x, y, z, sheet.getFrameWidth(), sheet.getFrameHeight());
+		this.sheet = sheet;
+		this.frames = new int[8];
+		this.ends = new long[8];
+		this.count = 0;
+		this.loop = loop;
+		this.frameID = -1;
+		update();
+	}
+	
+	/**
+	 * Find the frame due at the current position, and show it if it is another one.
+	 */
+	private void changeFrame() {
+		int id = -1;
+		if (count > 0) {
+			long total = ends[count - 1];
+			long p = position;
+			if (total == 0) {
+				p = 0;
+			} else if (loop) {
+				p %= total;
+			}
+			
+			// Search from the frame shown, since the animation mostly goes forward
+			id = (frameID >= 0 && frameID < count && (frameID == 0 || p >= ends[frameID - 1])) ? frameID : 0;
+			while (id < count - 1 && p >= ends[id]) {
+				id++;
+			}
+		}
+		if (id != frameID) {
+			frameID = id;
+			notifyChange();
+		}
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Perform the image update : the image is the view on the frame shown, so nothing is copied.
+	 */
+	protected void update() {
+		setImage((frameID < 0) ? null : sheet.getFrame(frames[frameID]));
+	}
+	
+	/**
+	 * Capture how to paint the frame shown directly : the view on the frame is shared and never changed.
+	 */
+	protected GPaint capture() {
+		if (frameID < 0) {
+			return null;
+		}
+		final Image frame = sheet.getFrame(frames[frameID]);
+		return new GPaint() {
+			public void paint(Graphics2D g, int x, int y) {
+				g.drawImage(frame, x, y, null);
+			}
+		};
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Begin the animation at a time of the clock.
+	 * @param time The time of the clock (in ns)
+	 */
+	public void start(long time) {
+		this.start = time;
+		setPosition(0);
+	}
+	
+	/**
+	 * Show the frame due at a time of the clock.
+	 * @param time The time of the clock (in ns, from the beginning of the animation if before it)
+	 */
+	public void setTime(long time) {
+		setPosition(Math.max(0, time - start));
+	}
+	
+	/**
+	 * Move the animation forward.
+	 * @param elapsed The time elapsed (in ns)
+	 */
+	public void advance(long elapsed) {
+		if (elapsed < 0) {
+			throw new IllegalArgumentException("The time elapsed can't be negative.");
+		}
+		setPosition(position + elapsed);
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Add a frame to the animation.
+	 * @param index The nb of the frame in the sheet
+	 * @param duration The duration of the frame (in ms)
+	 */
+	public void addFrame(int index, int duration) {
+		if (index < 0 || index >= sheet.getFrameCount()) {
+			throw new IllegalArgumentException("The frame " + index + " isn't in the sheet.");
+		}
+		if (duration < 0) {
+			throw new IllegalArgumentException("The duration of a frame can't be negative.");
+		}
+		if (count == frames.length) {
+			frames = Arrays.copyOf(frames, count * 2);
+			ends = Arrays.copyOf(ends, count * 2);
+		}
+		frames[count] = index;
+		ends[count] = ((count == 0) ? 0 : ends[count - 1]) + duration * 1000000L;
+		count++;
+		changeFrame();
+	}
+	
+	/**
+	 * Add some consecutive frames of the sheet to the animation, each for the same duration.
+	 * @param first The nb of the first frame in the sheet
+	 * @param last The nb of the last frame in the sheet
+	 * @param duration The duration of each frame (in ms)
+	 */
+	public void addFrames(int first, int last, int duration) {
+		if (first > last) {
+			throw new IllegalArgumentException("The first frame can't be after the last one.");
+		}
+		beginBatch();
+		for (int i = first; i <= last; i++) {
+			addFrame(i, duration);
+		}
+		endBatch();
+	}
+	
+	/**
+	 * Clear the frames of the animation.
+	 */
+	public void clearFrames() {
+		count = 0;
+		changeFrame();
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Get the sheet of the frames.
+	 */
+	public GSpriteSheet getSheet() {
+		return sheet;
+	}
+	
+	/**
+	 * Know whether the animation is looped or not.
+	 */
+	public boolean isLooped() {
+		return loop;
+	}
+	
+	/**
+	 * Know whether the animation is over, ie it isn't looped and its last frame has ended.
+	 */
+	public boolean isFinished() {
+		return !loop && count > 0 && position >= ends[count - 1];
+	}
+	
+	/**
+	 * Get the nb of the frame shown, beginning from 0 (-1 if there is none).
+	 */
+	public int getFrameID() {
+		return frameID;
+	}
+	
+	/**
+	 * Get the nb of frames of the animation.
+	 */
+	public int getFrameCount() {
+		return count;
+	}
+	
+	/**
+	 * Get the time elapsed since the beginning of the animation (in ns).
+	 */
+	public long getPosition() {
+		return position;
+	}
+	
+	/**
+	 * Get the duration of the animation (in ns).
+	 */
+	public long getDuration() {
+		return (count == 0) ? 0 : ends[count - 1];
+	}
+	
+	/**
+	 * Set the time elapsed since the beginning of the animation.
+	 * @param position The new position (in ns)
+	 */
+	public void setPosition(long position) {
+		if (position < 0) {
+			throw new IllegalArgumentException("The position in the animation can't be negative.");
+		}
+		this.position = position;
+		changeFrame();
+	}
+	
+	/**
+	 * Set the looping of the animation.
+	 * @param loop Whether the animation is looped or not
+	 */
+	public void setLoop(boolean loop) {
+		this.loop = loop;
+		changeFrame();
+	}
+}
@@ -0,0 +1,100 @@
+package s2D.windowEngine;
+
+import java.awt.*;
+import java.awt.image.*;
+import s2D.*;
+
+/**
+ * A sheet of sprite frames : an image cut in a grid of frames of the same size, numbered from left to right and from top to bottom.<br/>
+ * Each frame is a view on the sheet, made once : the G Sprites showing the frames of a sheet share them, and switching to a frame copies nothing.
+ * @author Guillaume Singland
+ * @version 2.0
+ */
+public class GSpriteSheet {
+	
+	private BufferedImage sheet;		// The image of the sheet
+	private int frameWidth;			// The width of a frame
+	private int frameHeight;		// The height of a frame
+	private BufferedImage[] frames;		// The view on each frame
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Build a sprite sheet from a cached image.
+	 * @param path The path of the image file, from the Gs directory
+	 * @param frameWidth The width of a frame
+	 * @param frameHeight The height of a frame
+	 */
+	public GSpriteSheet(String path, int frameWidth, int frameHeight) {
+		this((BufferedImage) Game.DATA.getFromCache(path), frameWidth, frameHeight);
+	}
+	
+	/**
+	 * Build a sprite sheet from an image.
+	 * @param sheet The image of the sheet
+	 * @param frameWidth The width of a frame
+	 * @param frameHeight The height of a frame
+	 */
+	public GSpriteSheet(BufferedImage sheet, int frameWidth, int frameHeight) {
+		if (sheet == null) {
+			throw new IllegalArgumentException("The image of the sheet can't be null.");
+		}
+		if (frameWidth <= 0 || frameHeight <= 0) {
+			throw new IllegalArgumentException("The size of a frame must be strictly positive.");
+		}
+		if (frameWidth > sheet.getWidth() || frameHeight > sheet.getHeight()) {
+			throw new IllegalArgumentException("The frames can't be bigger than the sheet.");
+		}
+		this.sheet = sheet;
+		this.frameWidth = frameWidth;
+		this.frameHeight = frameHeight;
+		
+		int columns = sheet.getWidth() / frameWidth;
+		int rows = sheet.getHeight() / frameHeight;
+		this.frames = new BufferedImage[columns * rows];
+		for (int i = 0; i < frames.length; i++) {
+			frames[i] = sheet.getSubimage((i % columns) * frameWidth, (i / columns) * frameHeight, frameWidth, frameHeight);
+		}
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Get a frame.
+	 * @param index The nb of the frame, from 0
+	 */
+	public Image getFrame(int index) {
+		if (index < 0 || index >= frames.length) {
+			throw new IllegalArgumentException("The frame " + index + " isn't in the sheet.");
+		}
+		return frames[index];
+	}
+	
+	/**
+	 * Get the nb of frames.
+	 */
+	public int getFrameCount() {
+		return frames.length;
+	}
+	
+	/**
+	 * Get the width of a frame.
+	 */
+	public int getFrameWidth() {
+		return frameWidth;
+	}
+	
+	/**
+	 * Get the height of a frame.
+	 */
+	public int getFrameHeight() {
+		return frameHeight;
+	}
+	
+	/**
+	 * Get the image of the sheet.
+	 */
+	public Image getImage() {
+		return sheet;
+	}
+}
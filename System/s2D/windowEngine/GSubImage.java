@@ -4,7 +4,9 @@ import java.awt.*;
 import java.awt.image.*;
 
 /**
- * A displayable SubImage (that is, only a portion of a real image).
+ * A displayable SubImage (that is, only a portion of a real image).<br/>
+ * Its image is a view on the portion of the cached image, sharing its pixels : changing the portion copies nothing.
+ * In immediate mode, the portion is painted straight from the cached image instead.
  * @author Guillaume Singland
  * @version 2.0
  */
@@ -36,20 +38,35 @@ public class GSubImage extends GImage {
 		setPortionHeight(portionHeight);
 		setWidth(portionWidth);
 		setHeight(portionHeight);
-		update();
 	}
 	
 	/////////////////////////////////////////////////
 	
 	/**
-	 * Perform the image update.
+	 * Perform the image update : the image is a view on the portion of the cached image, so nothing is copied.
+	 * The part of the portion beyond the cached image is left out.
 	 */
 	protected void update() {
-		Image image = new BufferedImage(getWidth(), getHeight(), BufferedImage.TYPE_INT_ARGB);
-		Graphics2D g = (Graphics2D) image.getGraphics();
-		Image target = getTarget();
-		g.drawImage(target, 0, 0, portionWidth, portionHeight, portionX, portionY, portionX + portionWidth, portionY + portionHeight, null);
-		setImage(image);
+		BufferedImage target = (BufferedImage) getTarget();
+		int width = Math.min(portionWidth, target.getWidth() - portionX);
+		int height = Math.min(portionHeight, target.getHeight() - portionY);
+		setImage((width > 0 && height > 0) ? target.getSubimage(portionX, portionY, width, height) : null);
+	}
+	
+	/**
+	 * Capture how to paint the portion of the image directly : the cached image is never changed, only the portion is copied.
+	 */
+	protected GPaint capture() {
+		final Image target = getTarget();
+		final int sx = portionX;
+		final int sy = portionY;
+		final int width = portionWidth;
+		final int height = portionHeight;
+		return new GPaint() {
+			public void paint(Graphics2D g, int x, int y) {
+				g.drawImage(target, x, y, x + width, y + height, sx, sy, sx + width, sy + height, null);
+			}
+		};
 	}
 	
 	//////////////////////////////////////////////////////
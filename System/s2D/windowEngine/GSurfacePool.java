@@ -0,0 +1,205 @@
+package s2D.windowEngine;
+
+import java.awt.*;
+import java.awt.image.*;
+import java.util.*;
+import s2D.metricsEngine.*;
+
+/**
+ * A pool of raster surfaces, where the G Elements draw their images.<br/>
+ * The surfaces are sorted by size class and image type : a surface of a size class can hold any image whose size rounds up to this class.
+ * An element gets a view of the exact size it needs, and gives the surface back when it doesn't need it anymore.
+ * The pool only knows the views weakly : a view never given back is collected with its surface.
+ * A surface given back may still be drawn by the graphic thread : it is only reused once retired and recycled (see GFrame).<br/>
+ * The pool keeps some counters, so that its efficiency can be watched.
+ * @author Guillaume Singland
+ * @version 2.0
+ */
+public final class GSurfacePool {
+	
+	/////////// PARAMETERS //////////////////////////
+	
+	private final static int SIZE_CLASS = 16;			// The granularity of the size classes (in pixels)
+	private final static long MAX_POOLED_BYTES = 32L << 20;		// The max nb of bytes kept by the pool
+	private final static int MAX_RETIRING = 1024;			// The max nb of surfaces waiting to be retired
+	
+	/////////////////////////////////////////////////
+	
+	private static Map<Long, Deque<BufferedImage>> pool = new HashMap<Long, Deque<BufferedImage>>();	// The free surfaces, by key
+	private static Map<BufferedImage, BufferedImage> surfaces = new WeakHashMap<BufferedImage, BufferedImage>();	// The surface behind each view given (null if the view is the surface)
+	private static java.util.List<BufferedImage> retiring = new ArrayList<BufferedImage>();	// The surfaces given back since the last retirement
+	private static long hits;				// The nb of surfaces taken from the pool
+	private static long misses;				// The nb of surfaces which had to be allocated
+	private static long allocatedBytes;			// The nb of bytes allocated by the pool
+	private static long pooledBytes;			// The nb of bytes currently kept by the pool
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * No instance of the pool.
+	 */
+	private GSurfacePool() { }
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Get a surface from the pool. Its content is undefined.
+	 * @param width The width of the surface
+	 * @param height The height of the surface
+	 * @param type The type of the image (see BufferedImage)
+	 */
+	static synchronized BufferedImage acquire(int width, int height, int type) {
+		width = Math.max(width, 1);
+		height = Math.max(height, 1);
+		int classWidth = sizeClass(width);
+		int classHeight = sizeClass(height);
+		Deque<BufferedImage> free = pool.get(key(classWidth, classHeight, type));
+		
+		BufferedImage surface;
+		if (free != null && !free.isEmpty()) {
+			surface = free.pop();
+			pooledBytes -= getBytes(surface);
+			hits++;
+		} else {
+			surface = new BufferedImage(classWidth, classHeight, type);
+			allocatedBytes += getBytes(surface);
+			Metrics.count(Counter.RASTER_BYTES, getBytes(surface));
+			misses++;
+		}
+		
+		if (width == classWidth && height == classHeight) {
+			// The surface mustn't refer to itself, else it would never be collected
+			surfaces.put(surface, null);
+			return surface;
+		}
+		BufferedImage view = surface.getSubimage(0, 0, width, height);
+		surfaces.put(view, surface);
+		return view;
+	}
+	
+	/**
+	 * Give a surface back to the pool. Nothing is done if the image doesn't come from the pool.<br/>
+	 * The surface isn't reusable until it is retired and recycled.
+	 * @param image The image given by acquire (can be null)
+	 */
+	static synchronized void release(BufferedImage image) {
+		if (image == null || !surfaces.containsKey(image)) {
+			return;
+		}
+		BufferedImage surface = surfaces.remove(image);
+		if (surface == null) {
+			surface = image;
+		}
+		if (retiring.size() < MAX_RETIRING) {
+			retiring.add(surface);
+		}
+	}
+	
+	/**
+	 * Know whether an image is a view given by the pool, and not given back yet.
+	 * @param image The image (can be null)
+	 */
+	static synchronized boolean contains(Image image) {
+		return image instanceof BufferedImage && surfaces.containsKey(image);
+	}
+	
+	/**
+	 * Get the surfaces given back since the last retirement, and forget them.
+	 */
+	static synchronized java.util.List<BufferedImage> retire() {
+		java.util.List<BufferedImage> result = retiring;
+		retiring = new ArrayList<BufferedImage>();
+		return result;
+	}
+	
+	/**
+	 * Make some retired surfaces reusable.
+	 * @param retired The surfaces, which mustn't be drawn anymore
+	 */
+	static synchronized void recycle(java.util.List<BufferedImage> retired) {
+		for (BufferedImage surface : retired) {
+			free(surface);
+		}
+	}
+	
+	/**
+	 * Put a surface in the pool, if the pool isn't full.
+	 * @param surface The surface
+	 */
+	private static void free(BufferedImage surface) {
+		long bytes = getBytes(surface);
+		if (pooledBytes + bytes <= MAX_POOLED_BYTES) {
+			Long key = key(surface.getWidth(), surface.getHeight(), surface.getType());
+			Deque<BufferedImage> free = pool.get(key);
+			if (free == null) {
+				free = new ArrayDeque<BufferedImage>();
+				pool.put(key, free);
+			}
+			free.push(surface);
+			pooledBytes += bytes;
+		}
+	}
+	
+	/**
+	 * Empty the pool.
+	 */
+	public static synchronized void clear() {
+		pool.clear();
+		retiring.clear();
+		pooledBytes = 0;
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Get the nb of surfaces taken from the pool.
+	 */
+	public static synchronized long getHits() {
+		return hits;
+	}
+	
+	/**
+	 * Get the nb of surfaces which had to be allocated.
+	 */
+	public static synchronized long getMisses() {
+		return misses;
+	}
+	
+	/**
+	 * Get the total nb of bytes allocated by the pool.
+	 */
+	public static synchronized long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+	
+	/**
+	 * Get the nb of bytes currently kept by the pool.
+	 */
+	public static synchronized long getPooledBytes() {
+		return pooledBytes;
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Round a size up to its size class.
+	 * @param size The size
+	 */
+	private static int sizeClass(int size) {
+		return ((size + SIZE_CLASS - 1) / SIZE_CLASS) * SIZE_CLASS;
+	}
+	
+	/**
+	 * Get the key of a surface in the pool.
+	 */
+	private static Long key(int width, int height, int type) {
+		return ((long) type << 48) | ((long) width << 24) | height;
+	}
+	
+	/**
+	 * Get the nb of bytes used by a surface.
+	 */
+	private static long getBytes(BufferedImage surface) {
+		return (long) surface.getWidth() * surface.getHeight() * surface.getColorModel().getPixelSize() / 8;
+	}
+}
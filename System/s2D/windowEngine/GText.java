@@ -4,7 +4,9 @@ import java.awt.*;
 import java.awt.image.*;
 
 /**
- * A displayable line of text.
+ * A displayable line of text.<br/>
+ * It is drawn glyph by glyph from the shared glyph atlas, and measured with the cached metrics of its font (see GGlyphAtlas) :
+ * changing the text of a counter every frame only blits some glyphs.
  * @author Guillaume Singland
  * @version 2.0
  */
@@ -35,7 +37,6 @@ public class GText extends GElement {
 		setFont(font);
 		setColor(color);
 		setAntialiasing(true);
-		setMeasurements();
 		update();
 	}
 	
@@ -43,16 +44,17 @@ public class GText extends GElement {
 	 * Perform some computations about the text.
 	 */
 	private void setMeasurements() {
-		Image image = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
-		Graphics2D g = (Graphics2D) image.getGraphics();
-		g.setFont(font);
-		FontMetrics fm = g.getFontMetrics();
-		setWidth(fm.stringWidth(text));
-		setHeight(fm.getAscent() + fm.getDescent() + fm.getLeading());
+		if (text == null || font == null) {
+			return;
+		}
+		FontMetrics fm = GGlyphAtlas.getMetrics(font);
 		this.ascent = fm.getAscent();
 		this.descent = fm.getDescent();
 		this.leading = fm.getLeading();
-		g.dispose();
+		beginBatch();
+		setWidth(fm.stringWidth(text));
+		setHeight(ascent + descent + leading);
+		endBatch();
 	}
 	
 	/////////////////////////////////////////////////
@@ -61,14 +63,10 @@ public class GText extends GElement {
 	 * Perform the image update.
 	 */
 	protected void update() {
-		Image image = new BufferedImage(getWidth(), getHeight(), BufferedImage.TYPE_INT_ARGB);
-		Graphics2D g = (Graphics2D) image.getGraphics();
-		g.setColor(color);
-		g.setFont(font);
-		if (antialiasing) {
-			g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-		}
-		g.drawString(text, 0, ascent);
+		BufferedImage image = getSurface(getWidth(), getHeight());
+		Graphics2D g = image.createGraphics();
+		GGlyphAtlas.drawString(g, text, font, antialiasing, color, 0, ascent);
+		g.dispose();
 		setImage(image);
 	}
 	
@@ -131,9 +129,11 @@ public class GText extends GElement {
 		if (text == null) {
 			throw new IllegalArgumentException("The message can't be null.");
 		}
+		beginBatch();
 		this.text = text;
 		setMeasurements();
 		notifyChange();
+		endBatch();
 	}
 	
 	/**
@@ -156,9 +156,11 @@ public class GText extends GElement {
 		if (font == null) {
 			throw new IllegalArgumentException("The font can't be null.");
 		}
+		beginBatch();
 		this.font = font;
 		setMeasurements();
 		notifyChange();
+		endBatch();
 	}
 	
 	/**
@@ -0,0 +1,307 @@
+package s2D.windowEngine;
+
+import java.awt.*;
+import java.awt.image.*;
+import java.util.*;
+import s2D.metricsEngine.*;
+
+/**
+ * A displayable layer of a tile map : a grid of tiles, taken from a tileset, seen through a view of the size of the element.<br/>
+ * The map is cut in chunks of CHUNK_SIZE x CHUNK_SIZE tiles, each rendered once in a cached surface : the image of the view
+ * is made of the few chunks it intersects, whatever the size of the map. Changing a tile only renders its chunk again,
+ * and only redraws the part of the view it is in. The chunks far from the view are dropped, beyond the ones the view can intersect
+ * and a ring of CHUNKS_MARGIN chunks around them (and at least MIN_CHUNKS are kept) : a view of small tiles doesn't drop the chunks it is drawing.
+ * @author Guillaume Singland
+ * @version 2.0
+ */
+public class GTileMap extends GElement {
+	
+	/////////// PARAMETERS //////////////////////////
+	
+	private final static int CHUNK_SIZE = 8;		// The size of a chunk (in tiles)
+	private final static int MIN_CHUNKS = 64;		// The min of the max nb of chunks cached
+	private final static int CHUNKS_MARGIN = 1;		// The nb of chunks cached around the view, on each side
+	
+	/////////////////////////////////////////////////
+	
+	private GSpriteSheet tileset;			// The tileset
+	private int columns, rows;			// The size of the map (in tiles)
+	private int[] tiles;				// The tile of each cell, row after row (-1 if empty)
+	private int viewX, viewY;			// The position of the view in the map (in pixels)
+	private Map<Integer, BufferedImage> chunks;	// The cached chunks, from the least recently used
+	private Rectangle damaged;			// The only part of the view to redraw at the next image update (null for the whole view)
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Build an empty tile map.
+	 * @param tileset The tileset, whose frames are the tiles
+	 * @param x The x location of the left top corner
+	 * @param y The y location of the left top corner
+	 * @param z The display priority, from 0
+	 * @param width The width of the view
+	 * @param height The height of the view
+	 * @param columns The nb of columns of the map
+	 * @param rows The nb of rows of the map
+	 */
+	public GTileMap(GSpriteSheet tileset, int x, int y, int z, int width, int height, int columns, int rows) {
+		super(x, y, z, width, height);
+		if (tileset == null) {
+			throw new IllegalArgumentException("The tileset can't be null.");
+		}
+		if (columns <= 0 || rows <= 0) {
+			throw new IllegalArgumentException("The size of the map must be strictly positive.");
+		}
+		this.tileset = tileset;
+		this.columns = columns;
+		this.rows = rows;
+		this.tiles = new int[columns * rows];
+		Arrays.fill(tiles, -1);
+		this.chunks = new LinkedHashMap<Integer, BufferedImage>(MIN_CHUNKS, 0.75f, true);
+		update();
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Perform the image update : the chunks intersecting the view are drawn, only where the view is damaged if it is not wholly.<br/>
+	 * A partial update draws in place on the retained image ; if there is none yet, the view is wholly redrawn.
+	 */
+	protected void update() {
+		int width = getWidth();
+		int height = getHeight();
+		Image previous = getImage();
+		Rectangle region = damaged;
+		damaged = null;
+		if (previous == null || previous.getWidth(null) != Math.max(width, 1) || previous.getHeight(null) != Math.max(height, 1)) {
+			region = null;
+		}
+		
+		BufferedImage image = region != null ? getRetainedSurface() : null;
+		Graphics2D g;
+		if (image == null) {
+			image = getSurface(width, height);
+			g = image.createGraphics();
+			region = new Rectangle(0, 0, width, height);
+		} else {
+			g = image.createGraphics();
+			g.setClip(region);
+			g.setComposite(AlphaComposite.Clear);
+			g.fillRect(region.x, region.y, region.width, region.height);
+			g.setComposite(AlphaComposite.SrcOver);
+		}
+		
+		// Draw the chunks intersecting the region
+		int chunkWidth = CHUNK_SIZE * tileset.getFrameWidth();
+		int chunkHeight = CHUNK_SIZE * tileset.getFrameHeight();
+		int firstX = Math.max(0, Math.floorDiv(viewX + region.x, chunkWidth));
+		int firstY = Math.max(0, Math.floorDiv(viewY + region.y, chunkHeight));
+		int lastX = Math.min(getChunkColumns() - 1, Math.floorDiv(viewX + region.x + region.width - 1, chunkWidth));
+		int lastY = Math.min(getChunkRows() - 1, Math.floorDiv(viewY + region.y + region.height - 1, chunkHeight));
+		for (int cy = firstY; cy <= lastY; cy++) {
+			for (int cx = firstX; cx <= lastX; cx++) {
+				g.drawImage(getChunk(cx, cy), cx * chunkWidth - viewX, cy * chunkHeight - viewY, null);
+			}
+		}
+		g.dispose();
+		setImage(image);
+	}
+	
+	/**
+	 * Get a chunk, rendered if it isn't cached. The least recently used chunk is dropped if there are too many.
+	 * @param cx The column of the chunk
+	 * @param cy The row of the chunk
+	 */
+	private BufferedImage getChunk(int cx, int cy) {
+		Integer key = cy * getChunkColumns() + cx;
+		BufferedImage chunk = chunks.get(key);
+		if (chunk != null) {
+			return chunk;
+		}
+		
+		int max = getMaxChunks();
+		Iterator<BufferedImage> eldest = chunks.values().iterator();
+		while (chunks.size() >= max) {
+			GSurfacePool.release(eldest.next());
+			eldest.remove();
+		}
+		int tileWidth = tileset.getFrameWidth();
+		int tileHeight = tileset.getFrameHeight();
+		chunk = getSurface(CHUNK_SIZE * tileWidth, CHUNK_SIZE * tileHeight);
+		Graphics2D g = chunk.createGraphics();
+		int endX = Math.min(columns, (cx + 1) * CHUNK_SIZE);
+		int endY = Math.min(rows, (cy + 1) * CHUNK_SIZE);
+		for (int row = cy * CHUNK_SIZE; row < endY; row++) {
+			for (int column = cx * CHUNK_SIZE; column < endX; column++) {
+				int tile = tiles[row * columns + column];
+				if (tile >= 0) {
+					g.drawImage(tileset.getFrame(tile), (column - cx * CHUNK_SIZE) * tileWidth, (row - cy * CHUNK_SIZE) * tileHeight, null);
+				}
+			}
+		}
+		g.dispose();
+		Metrics.count(Counter.RASTERIZATIONS, 1);
+		chunks.put(key, chunk);
+		return chunk;
+	}
+	
+	/**
+	 * Drop all the cached chunks.
+	 */
+	private void dropChunks() {
+		for (BufferedImage chunk : chunks.values()) {
+			GSurfacePool.release(chunk);
+		}
+		chunks.clear();
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Get the tileset.
+	 */
+	public GSpriteSheet getTileset() {
+		return tileset;
+	}
+	
+	/**
+	 * Get the nb of columns of the map.
+	 */
+	public int getColumns() {
+		return columns;
+	}
+	
+	/**
+	 * Get the nb of rows of the map.
+	 */
+	public int getRows() {
+		return rows;
+	}
+	
+	/**
+	 * Get a tile of the map.
+	 * @param column The column of the cell
+	 * @param row The row of the cell
+	 */
+	public int getTile(int column, int row) {
+		if (column < 0 || row < 0 || column >= columns || row >= rows) {
+			throw new IllegalArgumentException("The cell (" + column + ", " + row + ") isn't in the map.");
+		}
+		return tiles[row * columns + column];
+	}
+	
+	/**
+	 * Get the x position of the view in the map (in pixels).
+	 */
+	public int getViewX() {
+		return viewX;
+	}
+	
+	/**
+	 * Get the y position of the view in the map (in pixels).
+	 */
+	public int getViewY() {
+		return viewY;
+	}
+	
+	/**
+	 * Get the nb of chunks currently cached.
+	 */
+	public int getCachedChunks() {
+		return chunks.size();
+	}
+	
+	/**
+	 * Get the max nb of chunks cached : the chunks the view can intersect and a margin around them, or MIN_CHUNKS if it is more.
+	 * It follows the size of the view.
+	 */
+	private int getMaxChunks() {
+		int chunkWidth = CHUNK_SIZE * tileset.getFrameWidth();
+		int chunkHeight = CHUNK_SIZE * tileset.getFrameHeight();
+		long across = getWidth() / chunkWidth + 2 + 2 * CHUNKS_MARGIN;
+		long down = getHeight() / chunkHeight + 2 + 2 * CHUNKS_MARGIN;
+		return (int) Math.min(Integer.MAX_VALUE, Math.max(MIN_CHUNKS, across * down));
+	}
+	
+	/**
+	 * Get the nb of columns of chunks.
+	 */
+	private int getChunkColumns() {
+		return (columns + CHUNK_SIZE - 1) / CHUNK_SIZE;
+	}
+	
+	/**
+	 * Get the nb of rows of chunks.
+	 */
+	private int getChunkRows() {
+		return (rows + CHUNK_SIZE - 1) / CHUNK_SIZE;
+	}
+	
+	/**
+	 * Set a tile of the map : only its chunk is rendered again, and only its part of the view is redrawn.
+	 * @param column The column of the cell
+	 * @param row The row of the cell
+	 * @param tile The nb of the tile in the tileset (-1 for an empty cell)
+	 */
+	public void setTile(int column, int row, int tile) {
+		if (column < 0 || row < 0 || column >= columns || row >= rows) {
+			throw new IllegalArgumentException("The cell (" + column + ", " + row + ") isn't in the map.");
+		}
+		if (tile < -1 || tile >= tileset.getFrameCount()) {
+			throw new IllegalArgumentException("The tile " + tile + " isn't in the tileset.");
+		}
+		if (tiles[row * columns + column] == tile) {
+			return;
+		}
+		tiles[row * columns + column] = tile;
+		BufferedImage chunk = chunks.remove((row / CHUNK_SIZE) * getChunkColumns() + column / CHUNK_SIZE);
+		GSurfacePool.release(chunk);
+		
+		// Redraw the cell, if it is in the view
+		int tileWidth = tileset.getFrameWidth();
+		int tileHeight = tileset.getFrameHeight();
+		Rectangle cell = new Rectangle(column * tileWidth - viewX, row * tileHeight - viewY, tileWidth, tileHeight);
+		cell = cell.intersection(new Rectangle(0, 0, getWidth(), getHeight()));
+		if (!cell.isEmpty()) {
+			if (!hasChanged()) {
+				damaged = cell;
+			} else if (damaged != null) {
+				damaged.add(cell);
+			}
+			notifyChange(cell.x, cell.y, cell.width, cell.height);
+		}
+	}
+	
+	/**
+	 * Set all the tiles of the map.
+	 * @param tiles The tile of each cell, row after row (-1 for an empty cell)
+	 */
+	public void setTiles(int[] tiles) {
+		if (tiles == null || tiles.length != columns * rows) {
+			throw new IllegalArgumentException("The map needs " + (columns * rows) + " tiles.");
+		}
+		for (int tile : tiles) {
+			if (tile < -1 || tile >= tileset.getFrameCount()) {
+				throw new IllegalArgumentException("The tile " + tile + " isn't in the tileset.");
+			}
+		}
+		System.arraycopy(tiles, 0, this.tiles, 0, tiles.length);
+		dropChunks();
+		damaged = null;
+		notifyChange();
+	}
+	
+	/**
+	 * Set the position of the view in the map.
+	 * @param viewX The new x position of the view (in pixels)
+	 * @param viewY The new y position of the view (in pixels)
+	 */
+	public void setView(int viewX, int viewY) {
+		if (viewX != this.viewX || viewY != this.viewY) {
+			this.viewX = viewX;
+			this.viewY = viewY;
+			damaged = null;
+			notifyChange();
+		}
+	}
+}
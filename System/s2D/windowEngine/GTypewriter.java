@@ -0,0 +1,364 @@
+package s2D.windowEngine;
+
+import java.awt.*;
+import java.awt.image.*;
+
+/**
+ * A displayable block of text, wrapped to a given width and revealed character by character, as in the dialogue boxes.<br/>
+ * The layout of the whole text is computed once, when the text is set : revealing some more characters only draws
+ * their glyphs (see GGlyphAtlas) in place, on the image it retains, so that each reveal costs the same whatever the length of the text.
+ * The texts needing a complex layout are redrawn line by line instead.
+ * @author Guillaume Singland
+ * @version 2.0
+ */
+public class GTypewriter extends GElement {
+	
+	private String text;		// The text
+	private Color color;		// The color
+	private Font font;		// The font
+	private boolean antialiasing;	// Whether the text has to be antialiased or not
+	private int wrapWidth;		// The width where the lines are wrapped
+	private int ascent;		// The ascent of the font
+	private int lineHeight;		// The height of a line
+	private int lineCount;		// The nb of lines
+	private int[] penX;		// The x position of each character
+	private int[] line;		// The line of each character
+	private boolean complex;	// Whether the text needs a complex layout, and can't be drawn glyph by glyph
+	private int revealed;		// The nb of characters revealed
+	private int drawn;		// The nb of characters drawn on the current image
+	private boolean redraw;		// Whether the image has to be redrawn from scratch
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Build a typewriter text, with nothing revealed yet.
+	 * @param x The x location of the left top corner
+	 * @param y The y location of the left top corner
+	 * @param z The display priority, from 0
+	 * @param wrapWidth The width where the lines are wrapped
+	 * @param text The text
+	 * @param color The color
+	 * @param font The font
+	 */
+	public GTypewriter(int x, int y, int z, int wrapWidth, String text, Color color, Font font) {
+		super(x, y, z);
+		if (wrapWidth <= 0) {
+			throw new IllegalArgumentException("The wrap width must be strictly positive.");
+		}
+		this.wrapWidth = wrapWidth;
+		setFont(font);
+		setText(text);
+		setColor(color);
+		setAntialiasing(true);
+		update();
+	}
+	
+	/**
+	 * Compute the position of each character of the text : the lines are broken at the line feeds,
+	 * and between the words which don't fit in the wrap width (or within a word longer than a line).
+	 */
+	private void setLayout() {
+		if (text == null || font == null) {
+			return;
+		}
+		FontMetrics fm = GGlyphAtlas.getMetrics(font);
+		ascent = fm.getAscent();
+		lineHeight = fm.getAscent() + fm.getDescent() + fm.getLeading();
+		penX = new int[text.length()];
+		line = new int[text.length()];
+		complex = GGlyphAtlas.requiresLayout(text.toCharArray());
+		
+		int x = 0;
+		int l = 0;
+		int i = 0;
+		while (i < text.length()) {
+			char c = text.charAt(i);
+			if (c == '\n' || c == ' ') {
+				penX[i] = x;
+				line[i] = l;
+				if (c == '\n') {
+					x = 0;
+					l++;
+				} else {
+					x += fm.charWidth(c);
+				}
+				i++;
+				continue;
+			}
+			
+			// A word
+			int end = i;
+			int width = 0;
+			while (end < text.length() && text.charAt(end) != '\n' && text.charAt(end) != ' ') {
+				width += fm.charWidth(text.charAt(end));
+				end++;
+			}
+			if (x > 0 && x + width > wrapWidth) {
+				x = 0;
+				l++;
+			}
+			for (; i < end; i++) {
+				int w = fm.charWidth(text.charAt(i));
+				if (x > 0 && x + w > wrapWidth) {
+					x = 0;
+					l++;
+				}
+				penX[i] = x;
+				line[i] = l;
+				x += w;
+			}
+		}
+		lineCount = l + 1;
+		
+		beginBatch();
+		setWidth(wrapWidth);
+		setHeight(lineCount * lineHeight);
+		endBatch();
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Perform the image update : only the characters revealed since the last update are drawn, unless the whole text has to be redrawn.
+	 */
+	protected void update() {
+		if (text == null || font == null || color == null) {
+			return;
+		}
+		if (!redraw && drawn == revealed && getImage() != null) {
+			return;
+		}
+		
+		BufferedImage image = null;
+		int from = 0;
+		if (!redraw && !complex && drawn <= revealed && getImage() != null) {
+			image = getRetainedSurface();
+			if (image == null || image.getWidth() != Math.max(getWidth(), 1) || image.getHeight() != Math.max(getHeight(), 1)) {
+				// The glyphs already drawn are only copied the first time, and when the size changes
+				image = getSurface(getWidth(), getHeight(), getImage());
+			}
+			from = drawn;
+		}
+		if (image == null) {
+			image = getSurface(getWidth(), getHeight());
+			from = 0;
+		}
+		Graphics2D g = image.createGraphics();
+		if (complex) {
+			drawLines(g);
+		} else {
+			for (int i = from; i < revealed; i++) {
+				char c = text.charAt(i);
+				if (c != ' ' && c != '\n') {
+					GGlyphAtlas.drawChar(g, c, font, antialiasing, color, penX[i], line[i] * lineHeight + ascent);
+				}
+			}
+		}
+		g.dispose();
+		setImage(image);
+		drawn = revealed;
+		redraw = false;
+	}
+	
+	/**
+	 * Draw the revealed part of each line as a whole.
+	 * @param g The graphics where to draw
+	 */
+	private void drawLines(Graphics2D g) {
+		int start = 0;
+		while (start < revealed) {
+			int end = start;
+			while (end < revealed && line[end] == line[start]) {
+				end++;
+			}
+			int last = end;
+			while (last > start && text.charAt(last - 1) == '\n') {
+				last--;
+			}
+			if (last > start) {
+				GGlyphAtlas.drawString(g, text.substring(start, last), font, antialiasing, color, penX[start], line[start] * lineHeight + ascent);
+			}
+			start = end;
+		}
+	}
+	
+	/**
+	 * Warn the element that the whole text has to be redrawn.
+	 */
+	private void notifyRedraw() {
+		redraw = true;
+		notifyChange();
+	}
+	
+	//////////////////////////////////////////////////////
+	
+	/**
+	 * Reveal some more characters.
+	 * @param count The nb of characters to reveal
+	 */
+	public void reveal(int count) {
+		if (count < 0) {
+			throw new IllegalArgumentException("The nb of characters to reveal must be positive.");
+		}
+		setRevealed(Math.min(text.length(), revealed + count));
+	}
+	
+	/**
+	 * Reveal the whole text.
+	 */
+	public void revealAll() {
+		setRevealed(text.length());
+	}
+	
+	/**
+	 * Know whether the whole text is revealed.
+	 */
+	public boolean isRevealed() {
+		return revealed == text.length();
+	}
+	
+	//////////////////////////////////////////////////////
+	
+	/**
+	 * Get the text.
+	 */
+	public String getText() {
+		return text;
+	}
+	
+	/**
+	 * Get the color.
+	 */
+	public Color getColor() {
+		return color;
+	}
+	
+	/**
+	 * Get the font.
+	 */
+	public Font getFont() {
+		return font;
+	}
+	
+	/**
+	 * Know whether the text is antialiased or not.
+	 */
+	public boolean isAntialiased() {
+		return antialiasing;
+	}
+	
+	/**
+	 * Get the width where the lines are wrapped.
+	 */
+	public int getWrapWidth() {
+		return wrapWidth;
+	}
+	
+	/**
+	 * Get the nb of lines.
+	 */
+	public int getLineCount() {
+		return lineCount;
+	}
+	
+	/**
+	 * Get the height of a line.
+	 */
+	public int getLineHeight() {
+		return lineHeight;
+	}
+	
+	/**
+	 * Get the nb of characters revealed.
+	 */
+	public int getRevealed() {
+		return revealed;
+	}
+	
+	/**
+	 * Set the text, with nothing revealed.
+	 * @param text The new text
+	 */
+	public void setText(String text) {
+		if (text == null) {
+			throw new IllegalArgumentException("The message can't be null.");
+		}
+		beginBatch();
+		this.text = text;
+		this.revealed = 0;
+		setLayout();
+		notifyRedraw();
+		endBatch();
+	}
+	
+	/**
+	 * Set the nb of characters revealed.
+	 * @param revealed The new nb of characters revealed
+	 */
+	public void setRevealed(int revealed) {
+		if (revealed < 0 || revealed > text.length()) {
+			throw new IllegalArgumentException("The nb of characters revealed must be between 0 and the length of the text.");
+		}
+		if (revealed > this.revealed) {
+			// Only the lines of the new characters are changed
+			int first = line[this.revealed];
+			int last = line[revealed - 1];
+			this.revealed = revealed;
+			notifyChange(0, first * lineHeight, getWidth(), (last - first + 1) * lineHeight);
+		} else if (revealed < this.revealed) {
+			this.revealed = revealed;
+			notifyChange();
+		}
+	}
+	
+	/**
+	 * Set the color.
+	 * @param color The new color
+	 */
+	public void setColor(Color color) {
+		if (color == null) {
+			throw new IllegalArgumentException("The color can't be null.");
+		}
+		this.color = color;
+		notifyRedraw();
+	}
+	
+	/**
+	 * Set the font.
+	 * @param font The new font
+	 */
+	public void setFont(Font font) {
+		if (font == null) {
+			throw new IllegalArgumentException("The font can't be null.");
+		}
+		beginBatch();
+		this.font = font;
+		setLayout();
+		notifyRedraw();
+		endBatch();
+	}
+	
+	/**
+	 * Set the antialiasing.
+	 * @param antialiasing The new antialiasing
+	 */
+	public void setAntialiasing(boolean antialiasing) {
+		this.antialiasing = antialiasing;
+		notifyRedraw();
+	}
+	
+	/**
+	 * Set the width where the lines are wrapped.
+	 * @param wrapWidth The new wrap width
+	 */
+	public void setWrapWidth(int wrapWidth) {
+		if (wrapWidth <= 0) {
+			throw new IllegalArgumentException("The wrap width must be strictly positive.");
+		}
+		beginBatch();
+		this.wrapWidth = wrapWidth;
+		setLayout();
+		notifyRedraw();
+		endBatch();
+	}
+}
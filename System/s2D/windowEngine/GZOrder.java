@@ -0,0 +1,129 @@
+package s2D.windowEngine;
+
+import java.util.*;
+
+/**
+ * A list of G Elements sorted in the display order : by z, and for a same z the last added is displayed below.<br/>
+ * Adding, removing and repositioning an element are done in logarithmic time.
+ * Each element is observed, so that changing its z relocates it automatically.
+ * @author Guillaume Singland
+ * @version 2.0
+ */
+class GZOrder implements Iterable<GElement> {
+	
+	private TreeSet<Entry> set;				// The entries, in the display order
+	private Map<GElement, Entry> entries;			// The entry of each element
+	private long sequence;					// The nb of elements added so far
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Build an empty list.
+	 */
+	GZOrder() {
+		set = new TreeSet<Entry>();
+		entries = new HashMap<GElement, Entry>();
+		sequence = 0;
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Add an element. Nothing is done if it is already in.
+	 * @param elt The element
+	 */
+	void add(GElement elt) {
+		if (!entries.containsKey(elt)) {
+			Entry entry = new Entry(elt, sequence++);
+			entries.put(elt, entry);
+			set.add(entry);
+			elt.addObserver(entry);
+		}
+	}
+	
+	/**
+	 * Remove an element. Returns whether it was in.
+	 * @param elt The element
+	 */
+	boolean remove(GElement elt) {
+		Entry entry = entries.remove(elt);
+		if (entry == null) {
+			return false;
+		}
+		set.remove(entry);
+		elt.removeObserver(entry);
+		return true;
+	}
+	
+	/**
+	 * Remove all the elements.
+	 */
+	void clear() {
+		for (Entry entry : set) {
+			entry.elt.removeObserver(entry);
+		}
+		set.clear();
+		entries.clear();
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Know whether an element is in the list.
+	 * @param elt The element
+	 */
+	boolean contains(GElement elt) {
+		return entries.containsKey(elt);
+	}
+	
+	/**
+	 * Get the nb of elements.
+	 */
+	int size() {
+		return set.size();
+	}
+	
+	/**
+	 * Iterate on the elements, from the bottom to the top.
+	 */
+	public Iterator<GElement> iterator() {
+		final Iterator<Entry> i = set.iterator();
+		return new Iterator<GElement>() {
+			public boolean hasNext() {
+				return i.hasNext();
+			}
+			public GElement next() {
+				return i.next().elt;
+			}
+		};
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * The entry of an element, which relocates it when its z changes.
+	 */
+	private class Entry implements Runnable, Comparable<Entry> {
+		private GElement elt;
+		private int z;
+		private long sequence;
+		public Entry(GElement elt, long sequence) {
+			this.elt = elt;
+			this.z = elt.getZ();
+			this.sequence = sequence;
+		}
+		public void run() {
+			if (z != elt.getZ()) {
+				set.remove(this);
+				z = elt.getZ();
+				set.add(this);
+			}
+		}
+		public int compareTo(Entry o) {
+			if (z != o.z) {
+				return (z < o.z) ? -1 : 1;
+			}
+			return Long.compare(o.sequence, sequence);
+		}
+	}
+}
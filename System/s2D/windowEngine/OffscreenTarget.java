@@ -0,0 +1,69 @@
+package s2D.windowEngine;
+
+import java.awt.*;
+import java.awt.image.*;
+
+/**
+ * An offscreen render target : the frames are drawn on an image, which is never presented on the screen.<br/>
+ * It needs no display, so it works with java.awt.headless=true, and its pixels can be read back.
+ * @author Guillaume Singland
+ * @version 2.0
+ */
+class OffscreenTarget extends RenderTarget {
+	
+	private int width, height;				// The size of the target
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Build an offscreen target.
+	 * @param width The width of the target
+	 * @param height The height of the target
+	 * @param background The background color
+	 */
+	OffscreenTarget(int width, int height, Color background) {
+		super(background);
+		this.width = width;
+		this.height = height;
+		setBuffer(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB));
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Update the target : the buffer is already what is presented.
+	 */
+	void update() {
+		getDrawn().clear();
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Get the X position of the top-left corner of the target.
+	 */
+	int getX() {
+		return 0;
+	}
+	
+	/**
+	 * Get the Y position of the top-left corner of the target.
+	 */
+	int getY() {
+		return 0;
+	}
+	
+	/**
+	 * Get the width of the target.
+	 */
+	int getWidth() {
+		return width;
+	}
+	
+	/**
+	 * Get the height of the target.
+	 */
+	int getHeight() {
+		return height;
+	}
+}
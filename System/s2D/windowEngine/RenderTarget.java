@@ -0,0 +1,182 @@
+package s2D.windowEngine;
+
+import java.awt.*;
+import java.awt.image.*;
+import java.util.*;
+import s2D.metricsEngine.*;
+
+/**
+ * Where a Window Manager draws : a retained image, where the frames published by the G Context are drawn, and which is then presented somewhere.<br/>
+ * The target can be a window on the screen, or an offscreen image which works without any display.
+ * @author Guillaume Singland
+ * @version 2.0
+ */
+abstract class RenderTarget {
+	
+	private Color background;				// The background color
+	private BufferedImage buffer;				// The retained image, where everything is drawn
+	private Graphics2D g;					// The graphics where to draw (on the buffer)
+	private java.util.List<Rectangle> drawn;		// The regions drawn on the buffer since the last update
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Build a render target, without its buffer.
+	 * @param background The background color
+	 */
+	RenderTarget(Color background) {
+		this.background = background;
+		this.drawn = new ArrayList<Rectangle>();
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Update the target, by presenting the regions drawn since the last update.
+	 */
+	abstract void update();
+	
+	/**
+	 * Activate or deactivate the fullscreen mode, if the target supports it.
+	 * @param fullscreen Whether the fullscreen mode is activated or not.
+	 */
+	void setFullscreen(boolean fullscreen) {
+	
+	}
+	
+	/**
+	 * Clear a region of the target and restrict the drawing to it.
+	 * @param r The region to clear
+	 */
+	void clear(Rectangle r) {
+		g.setClip(r);
+		g.setColor(background);
+		g.fillRect(r.x, r.y, r.width, r.height);
+		drawn.add(r);
+	}
+	
+	/**
+	 * Clear the target.
+	 */
+	void clear() {
+		clear(new Rectangle(0, 0, getWidth(), getHeight()));
+	}
+	
+	/**
+	 * Shift what is drawn on the target, as the camera moves : the pixels move by (-dx, -dy), and the strips exposed are left as they were.<br/>
+	 * All the pixels moved, so the whole target is presented at the next update : the shift only saves redrawing the elements.
+	 * Presenting only the strips would need the presented image to be shifted too, which a flipping buffer strategy can't do.
+	 * @param dx The move of the camera along x
+	 * @param dy The move of the camera along y
+	 */
+	void scroll(int dx, int dy) {
+		g.setClip(null);
+		g.copyArea(0, 0, buffer.getWidth(), buffer.getHeight(), -dx, -dy);
+		drawn.add(new Rectangle(0, 0, buffer.getWidth(), buffer.getHeight()));
+	}
+	
+	/**
+	 * Restrict the drawing to a region of the target.
+	 * @param r The region (null for the whole target)
+	 */
+	void setClip(Rectangle r) {
+		g.setClip(r);
+	}
+	
+	/**
+	 * Draw an image on the target
+	 * @param image The image to draw
+	 * @param x The x position
+	 * @param y The y position
+	 */
+	void draw(Image image, int x, int y) {
+		g.drawImage(image, x, y, null);
+	}
+	
+	/**
+	 * Paint an element in immediate mode on the target
+	 * @param painting The record of the element to paint
+	 * @param x The x position
+	 * @param y The y position
+	 */
+	void draw(GPaint painting, int x, int y) {
+		painting.paint(g, x, y);
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Replace the buffer, which is cleared.
+	 * @param buffer The new buffer
+	 */
+	protected void setBuffer(BufferedImage buffer) {
+		if (g != null) {
+			g.dispose();
+		}
+		this.buffer = buffer;
+		Metrics.count(Counter.RASTER_BYTES, (long) buffer.getWidth() * buffer.getHeight() * buffer.getColorModel().getPixelSize() / 8);
+		g = buffer.createGraphics();
+		g.setColor(background);
+		g.fillRect(0, 0, buffer.getWidth(), buffer.getHeight());
+		drawn.clear();
+	}
+	
+	/**
+	 * Get the buffer.
+	 */
+	protected BufferedImage getBuffer() {
+		return buffer;
+	}
+	
+	/**
+	 * Get the regions drawn on the buffer since the last update. The update has to clear them once presented.
+	 */
+	protected java.util.List<Rectangle> getDrawn() {
+		return drawn;
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Get a copy of what is on the buffer.
+	 */
+	BufferedImage getSnapshot() {
+		BufferedImage copy = new BufferedImage(buffer.getWidth(), buffer.getHeight(), BufferedImage.TYPE_INT_RGB);
+		Graphics2D cg = copy.createGraphics();
+		cg.drawImage(buffer, 0, 0, null);
+		cg.dispose();
+		return copy;
+	}
+	
+	/**
+	 * Get the color of a pixel of the buffer, in the default RGB model.
+	 * @param x The x position
+	 * @param y The y position
+	 */
+	int getPixel(int x, int y) {
+		if (x < 0 || y < 0 || x >= buffer.getWidth() || y >= buffer.getHeight()) {
+			throw new IllegalArgumentException("The pixel (" + x + ", " + y + ") is out of the target.");
+		}
+		return buffer.getRGB(x, y);
+	}
+	
+	/**
+	 * Get the X position of the top-left corner of the target.
+	 */
+	abstract int getX();
+	
+	/**
+	 * Get the Y position of the top-left corner of the target.
+	 */
+	abstract int getY();
+	
+	/**
+	 * Get the width of the target.
+	 */
+	abstract int getWidth();
+	
+	/**
+	 * Get the height of the target.
+	 */
+	abstract int getHeight();
+}
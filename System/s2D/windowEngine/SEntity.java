@@ -1,25 +1,28 @@
 package s2D.windowEngine;
 
-import java.util.*;
-
 /**
- * An entity representing a signal.
+ * An entity representing a signal : the registration of a listener for a signal.<br/>
+ * It is the handle given when the listener is added, and it removes this registration only.
  * @author Guillaume Singland
  * @version 2.0
  */
-class SEntity {
+public class SEntity {
 	
 	private Signal signal;			// The signal
 	private SListener action;		// The action to execute
+	private STable.Bucket bucket;		// The bucket where the entity is registered (null if it is removed)
+	private long sequence;			// The order of the registration among all the registrations of its table
 	
 	/**
 	 * Build an SEntity.
 	 * @param action The listener
 	 * @param signal The signal
+	 * @param sequence The order of the registration
 	 */
-	public SEntity(SListener action, Signal signal) {
+	SEntity(SListener action, Signal signal, long sequence) {
 		this.signal = signal;
 		this.action = action;
+		this.sequence = sequence;
 	}
 	
 	/**
@@ -35,4 +38,33 @@ class SEntity {
 	public SListener getAction() {
 		return action;
 	}
+	
+	/**
+	 * Know whether the listener is still registered.
+	 */
+	public boolean isRegistered() {
+		return bucket != null;
+	}
+	
+	/**
+	 * Get the order of the registration : the listeners of a signal are called by increasing order.
+	 */
+	long getSequence() {
+		return sequence;
+	}
+	
+	/**
+	 * Get the bucket where the entity is registered (null if it is removed).
+	 */
+	STable.Bucket getBucket() {
+		return bucket;
+	}
+	
+	/**
+	 * Set the bucket where the entity is registered.
+	 * @param bucket The new bucket (null if it is removed)
+	 */
+	void setBucket(STable.Bucket bucket) {
+		this.bucket = bucket;
+	}
 }
@@ -0,0 +1,170 @@
+package s2D.windowEngine;
+
+import java.util.*;
+
+/**
+ * The table of the signal listeners.<br/>
+ * The listeners are indexed by the type of their signal and by its key or button, the ones for any key or button being apart :
+ * dispatching a signal only visits the listeners matching it. Each registration is its own handle, so removing it costs nothing more.
+ * Each registration is numbered too, so that both kinds of listeners of a signal can be called in the order they were added.<br/>
+ * Each bucket keeps an array of its listeners, made again at the first dispatch after it changed : the signals are dispatched without allocating anything,
+ * and a listener can remove itself (or add another one) while it is called.
+ * @author Guillaume Singland
+ * @version 2.0
+ */
+class STable {
+	
+	/////////// PARAMETERS //////////////////////////
+	
+	private final static int TYPES = Signal.W_EXIT + 1;						// The nb of types of signal
+	private final static int INPUTS = Math.max(SKey.values().length, SButton.values().length) + 1;	// The nb of keys or buttons, and any of them
+	private final static SEntity[] NONE = new SEntity[0];						// The listeners of an empty bucket
+	
+	/////////////////////////////////////////////////
+	
+	private Bucket[] buckets;					// The bucket of each type and key or button
+	private Map<SListener, java.util.List<SEntity>> registrations;	// The registrations of each listener
+	private long sequence;						// The order of the next registration
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Build an empty table.
+	 */
+	STable() {
+		buckets = new Bucket[TYPES * INPUTS];
+		registrations = new HashMap<SListener, java.util.List<SEntity>>();
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Add a listener.
+	 * @param l The listener
+	 * @param s The signal
+	 * @return The handle of the registration
+	 */
+	synchronized SEntity add(SListener l, Signal s) {
+		SEntity o = new SEntity(l, s, sequence++);
+		int index = getIndex(s.getType(), getInput(s));
+		if (buckets[index] == null) {
+			buckets[index] = new Bucket();
+		}
+		o.setBucket(buckets[index]);
+		buckets[index].add(o);
+		
+		java.util.List<SEntity> list = registrations.get(l);
+		if (list == null) {
+			list = new ArrayList<SEntity>(1);
+			registrations.put(l, list);
+		}
+		list.add(o);
+		return o;
+	}
+	
+	/**
+	 * Remove a registration.
+	 * @param o The handle of the registration
+	 */
+	synchronized void remove(SEntity o) {
+		Bucket bucket = o.getBucket();
+		if (bucket == null) {
+			return;
+		}
+		o.setBucket(null);
+		bucket.remove(o);
+		
+		java.util.List<SEntity> list = registrations.get(o.getAction());
+		list.remove(o);
+		if (list.isEmpty()) {
+			registrations.remove(o.getAction());
+		}
+	}
+	
+	/**
+	 * Remove all the registrations of a listener.
+	 * @param l The listener
+	 */
+	synchronized void remove(SListener l) {
+		java.util.List<SEntity> list = registrations.remove(l);
+		if (list != null) {
+			for (SEntity o : list) {
+				o.getBucket().remove(o);
+				o.setBucket(null);
+			}
+		}
+	}
+	
+	/**
+	 * Remove all the listeners.
+	 */
+	synchronized void clear() {
+		for (java.util.List<SEntity> list : registrations.values()) {
+			for (SEntity o : list) {
+				o.setBucket(null);
+			}
+		}
+		registrations.clear();
+		Arrays.fill(buckets, null);
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Get the listeners of a type of signal, for a key or a button.
+	 * @param type The type of the signal
+	 * @param input The key or the button (null for the listeners of any of them)
+	 */
+	SEntity[] get(int type, Enum<?> input) {
+		Bucket bucket = buckets[getIndex(type, input)];
+		if (bucket == null) {
+			return NONE;
+		}
+		if (bucket.changed) {
+			synchronized (this) {
+				bucket.listeners = bucket.set.toArray(NONE);
+				bucket.changed = false;
+			}
+		}
+		return bucket.listeners;
+	}
+	
+	/**
+	 * Get the index of the bucket of a type of signal, for a key or a button.
+	 * @param type The type of the signal
+	 * @param input The key or the button (null for any of them)
+	 */
+	private static int getIndex(int type, Enum<?> input) {
+		return type * INPUTS + ((input == null) ? 0 : input.ordinal() + 1);
+	}
+	
+	/**
+	 * Get the key or the button of a signal (null if any).
+	 * @param s The signal
+	 */
+	private static Enum<?> getInput(Signal s) {
+		if (s.getKey() != null) {
+			return s.getKey();
+		}
+		return s.getButton();
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * The listeners of a type of signal, for a key or a button, in the order they were added.
+	 */
+	static class Bucket {
+		private Set<SEntity> set = new LinkedHashSet<SEntity>();
+		private SEntity[] listeners = NONE;
+		private volatile boolean changed;
+		void add(SEntity o) {
+			set.add(o);
+			changed = true;
+		}
+		void remove(SEntity o) {
+			set.remove(o);
+			changed = true;
+		}
+	}
+}
@@ -6,13 +6,14 @@ import java.awt.event.*;
 import javax.imageio.*;
 import java.io.*;
 import java.util.*;
+import s2D.metricsEngine.*;
 
 /**
- * Wrap of awt's Frame.
+ * Wrap of awt's Frame : the render target presenting the frames on the screen.
  * @author Guillaume Singland
  * @version 2.0
  */
-class Window {
+class Window extends RenderTarget {
 	
 	/////////// PARAMETERS //////////////////////////
 	
@@ -29,13 +30,11 @@ class Window {
 	private int width, height;				// The original size of the window
 	private boolean fullscreen;				// Whether the window is fullscreened or not
 	private BufferStrategy bs;				// The buffer strategy
-	private Graphics2D g;						// The graphics where to draw
+	private java.util.List<Rectangle> lastPresented;	// The regions presented at the last update
+	private boolean presentAll;				// Whether the whole buffer has to be presented at the next update
 	private GraphicsDevice gd;					// The graphics device, for the fullscreen
 	private java.awt.Window w;				// The window, for the fullscreen
-	private java.util.List<SEntity> windowSignals;		// The list of the window signals
-	private java.util.List<SEntity> mouseSignals;		// The list of the mouse signals
-	private java.util.List<SEntity> keyboardSignals;	// The list of the keyboard signals
-	private java.util.List<SEntity> exitSignals;		// The list of the exit signals
+	private STable signals;					// The signal listeners, by type and key or button
 	
 	/////////////////////////////////////////////////
 	
@@ -48,6 +47,7 @@ class Window {
 	 * @param background The background color of the window
 	 */
 	Window(int width, int height, String title, String icon, Color background) {
+		super(background);
 		this.width = width;
 		this.height = height;
 		this.title = title;
@@ -56,10 +56,8 @@ class Window {
 		this.cursor = CURSOR;
 		this.fullscreen = false;
 		this.gd = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice();
-		this.windowSignals = new ArrayList<SEntity>();
-		this.mouseSignals = new ArrayList<SEntity>();
-		this.keyboardSignals = new ArrayList<SEntity>();
-		this.exitSignals = new ArrayList<SEntity>();
+		this.signals = new STable();
+		this.lastPresented = new ArrayList<Rectangle>();
 		
 		// Compute the coordinates of the window
 		Dimension screenSize = java.awt.Toolkit.getDefaultToolkit().getScreenSize();
@@ -83,10 +81,10 @@ class Window {
 		frame.setResizable(false);
 		frame.setVisible(true);
 		
-		// Create the buffer strategy and get the graphics
+		// Create the buffer strategy and the retained buffer
 		frame.createBufferStrategy(BUFFER_STRATEGY);
 		bs = frame.getBufferStrategy();
-		g = (Graphics2D) bs.getDrawGraphics();
+		createBuffer();
 		
 		// Initialize the listeners
 		frame.addWindowListener(new WListener());
@@ -106,7 +104,6 @@ class Window {
 	 */
 	void setFullscreen(boolean fullscreen) {
 		this.fullscreen = fullscreen;
-		g.dispose();
 		
 		if (fullscreen && gd.isFullScreenSupported()) {
     			gd.setFullScreenWindow(frame);
@@ -127,7 +124,7 @@ class Window {
 			int y = (screenHeight - height) / 2;
     			frame.setBounds(x, y, width, height);
 	    	}
-    		g = (Graphics2D) bs.getDrawGraphics();
+    		createBuffer();
 	}
 	
 	/**
@@ -139,29 +136,57 @@ class Window {
 	}
 	
 	/**
-	 * Update the window.
+	 * Update the window, by presenting the regions drawn since the last update.
 	 */
 	void update() {
-		bs.show();
-		g.dispose();
-		g = (Graphics2D) bs.getDrawGraphics();
+		if (bs.getCapabilities().isPageFlipping() && bs.getCapabilities().getFlipContents() != BufferCapabilities.FlipContents.COPIED
+				&& bs.getCapabilities().getFlipContents() != BufferCapabilities.FlipContents.PRIOR) {
+			// The back buffer contents are undefined after a flip
+			presentAll = true;
+		}
+		do {
+			do {
+				Graphics2D sg = (Graphics2D) bs.getDrawGraphics();
+				if (presentAll) {
+					sg.drawImage(getBuffer(), 0, 0, null);
+				} else {
+					// The back buffer may still hold the previous frame, so the previous regions are presented again
+					present(sg, lastPresented);
+					present(sg, getDrawn());
+				}
+				sg.dispose();
+			} while (bs.contentsRestored());
+			long showTic = Metrics.tic();
+			bs.show();
+			Metrics.toc(Phase.WINDOW_SHOW, showTic);
+			if (bs.contentsLost()) {
+				presentAll = true;
+			}
+		} while (bs.contentsLost());
+		presentAll = false;
+		lastPresented.clear();
+		lastPresented.addAll(getDrawn());
+		getDrawn().clear();
 	}
 	
 	/**
-	 * Clear the window.
+	 * Create the retained buffer, matching the size of the window.
 	 */
-	void clear() {
-		g.clearRect(0, 0, getWidth(), getHeight());
+	private void createBuffer() {
+		setBuffer(frame.getGraphicsConfiguration().createCompatibleImage(getWidth(), getHeight()));
+		lastPresented.clear();
+		presentAll = true;
 	}
 	
 	/**
-	 * Draw an image on the window
-	 * @param image The image to draw
-	 * @param x The x position
-	 * @param y The y position
+	 * Present some regions of the buffer on a graphics.
+	 * @param sg The graphics
+	 * @param regions The regions
 	 */
-	void draw(Image image, int x, int y) {
-		g.drawImage(image, x, y, null);
+	private void present(Graphics2D sg, java.util.List<Rectangle> regions) {
+		for (Rectangle r : regions) {
+			sg.drawImage(getBuffer(), r.x, r.y, r.x + r.width, r.y + r.height, r.x, r.y, r.x + r.width, r.y + r.height, null);
+		}
 	}
 	
 	/////////////////////////////////////////////////
@@ -194,92 +219,86 @@ class Window {
 		return frame.getHeight();
 	}
 	
+	/**
+	 * Get the graphics configuration of the screen device where the window is.
+	 */
+	GraphicsConfiguration getGraphicsConfiguration() {
+		return frame.getGraphicsConfiguration();
+	}
+	
 	/////////////////////////////////////////////////
 	
 	/**
-	 * Add a signal listener.
+	 * Add a signal listener ; the listeners of a signal are called in the order they were added.
 	 * @param l The listener
 	 * @param s The signal
+	 * @return The handle of the registration
 	 */
-	void addListener(SListener l, Signal s) {
-		switch (s.getCategory()) {
-			case Signal.KEYBOARD :
-				keyboardSignals.add(new SEntity(l, s));
-				break;
-			case Signal.MOUSE :
-				mouseSignals.add(new SEntity(l, s));
-				break;
-			default :
-				if (s.getType() == Signal.W_EXIT) {
-					exitSignals.add(new SEntity(l, s));
-				} else {
-					windowSignals.add(new SEntity(l, s));
-				}
-				break;
-		}
+	SEntity addListener(SListener l, Signal s) {
+		return signals.add(l, s);
 	}
 	
 	/**
-	 * Remove a signal listener.
+	 * Remove a signal listener, for all the signals it was added for.
 	 * @param l The listener
 	 */
 	void removeListener(SListener l) {
-		Iterator<SEntity> i = keyboardSignals.iterator();
-		while (i.hasNext()) {
-			SEntity o = i.next();
-			if (o.getAction() == l) {
-				i.remove();
-			}
-		}
-		i = mouseSignals.iterator();
-		while (i.hasNext()) {
-			SEntity o = i.next();
-			if (o.getAction() == l) {
-				i.remove();
-			}
-		}
-		i = windowSignals.iterator();
-		while (i.hasNext()) {
-			SEntity o = i.next();
-			if (o.getAction() == l) {
-				i.remove();
-			}
-		}
-		i = exitSignals.iterator();
-		while (i.hasNext()) {
-			SEntity o = i.next();
-			if (o.getAction() == l) {
-				i.remove();
-			}
-		}
+		signals.remove(l);
+	}
+	
+	/**
+	 * Remove a registration of a signal listener.
+	 * @param o The handle of the registration
+	 */
+	void removeListener(SEntity o) {
+		signals.remove(o);
 	}
 	
 	/**
 	 * Remove all signal listeners.
 	 */
 	void removeAllListeners() {
-		Iterator<SEntity> i = keyboardSignals.iterator();
-		while (i.hasNext()) {
-			i.next();
-			i.remove();
-		}
-		i = mouseSignals.iterator();
-		while (i.hasNext()) {
-			i.next();
-			i.remove();
-		}
-		i = windowSignals.iterator();
-		while (i.hasNext()) {
-			i.next();
-			i.remove();
+		signals.clear();
+	}
+	
+	/**
+	 * Dispatch a signal to the listeners of its key or button and to the listeners of any key or button, in the order they were added.
+	 * @param type The type of the signal
+	 * @param input The key or the button (null if none)
+	 * @param c Some information about the signal
+	 */
+	private void dispatch(int type, Enum<?> input, SCtx c) {
+		SEntity[] any = signals.get(type, null);
+		if (input == null) {
+			for (SEntity o : any) {
+				dispatch(o, c);
+			}
+			return;
 		}
-		i = exitSignals.iterator();
-		while (i.hasNext()) {
-			i.next();
-			i.remove();
+		
+		// Merge both buckets, each one being in the order of the registrations
+		SEntity[] specific = signals.get(type, input);
+		int i = 0;
+		int j = 0;
+		while (i < specific.length || j < any.length) {
+			if (j == any.length || (i < specific.length && specific[i].getSequence() < any[j].getSequence())) {
+				dispatch(specific[i++], c);
+			} else {
+				dispatch(any[j++], c);
+			}
 		}
 	}
 	
+	/**
+	 * Dispatch a signal to a listener.
+	 * @param o The listener and its signal
+	 * @param c Some information about the signal
+	 */
+	private void dispatch(SEntity o, SCtx c) {
+		Metrics.count(Counter.DISPATCHES, 1);
+		o.getAction().onSignal(c);
+	}
+	
 	/////////////////////////////////////////////////
 	
 	/**
@@ -290,18 +309,10 @@ class Window {
 		public void windowClosed(WindowEvent e) { }
 		public void windowDeactivated(WindowEvent e) { }
 		public void windowDeiconified(WindowEvent e) {
-			for (SEntity o : windowSignals) {
-				if (o.getSignal().getType() == Signal.W_RESUME) {
-					o.getAction().onSignal(null);
-				}
-			}
+			dispatch(Signal.W_RESUME, null, null);
 		}
 		public void windowIconified(WindowEvent e) {
-			for (SEntity o : windowSignals) {
-				if (o.getSignal().getType() == Signal.W_REDUCE) {
-					o.getAction().onSignal(null);
-				}
-			}
+			dispatch(Signal.W_REDUCE, null, null);
 		}
 		public void windowOpened(WindowEvent e) { }
 		public void windowClosing(WindowEvent e) { }
@@ -326,40 +337,24 @@ class Window {
 		public void mouseExited(MouseEvent e) { }
 		public void mouseDragged(MouseEvent e) { }
 		public void mouseMoved(MouseEvent e) {
-			for (SEntity o : mouseSignals) {
-				if (o.getSignal().getType() == Signal.M_MOVED) {
-					o.getAction().onSignal(new SMouseCtx(e, -1));
-				}
-			}
+			dispatch(Signal.M_MOVED, null, new SMouseCtx(e, -1));
 		}
 		public void mousePressed(MouseEvent e) {
 			SButton button = getButton(e);
 			if (button != null) {
 				pressedTime.put(button, (int) System.currentTimeMillis());
-				for (SEntity o : mouseSignals) {
-					if (o.getSignal().getType() == Signal.M_PRESSED && (o.getSignal().getButton() == button || o.getSignal().getButton() == null)) {
-						o.getAction().onSignal(new SMouseCtx(e, -1));
-					}
-				}
+				dispatch(Signal.M_PRESSED, button, new SMouseCtx(e, -1));
 			}
 		}
 		public void mouseReleased(MouseEvent e) {
 			SButton button = getButton(e);
 			if (button != null) {
 				int time = ((int) System.currentTimeMillis()) - pressedTime.get(button);
-				for (SEntity o : mouseSignals) {
-					if (o.getSignal().getType() == Signal.M_RELEASED && (o.getSignal().getButton() == button || o.getSignal().getButton() == null)) {
-						o.getAction().onSignal(new SMouseCtx(e, time));
-					}
-				}
+				dispatch(Signal.M_RELEASED, button, new SMouseCtx(e, time));
 			}
 		}
 		public final void mouseWheelMoved(MouseWheelEvent e) {
-			for (SEntity o : mouseSignals) {
-				if (o.getSignal().getType() == Signal.M_SCROLLED) {
-					o.getAction().onSignal(new SMouseCtx(e, -1));
-				}
-			}
+			dispatch(Signal.M_SCROLLED, null, new SMouseCtx(e, -1));
 		}
 		
 		public SButton getButton(MouseEvent event) {
@@ -405,11 +400,7 @@ class Window {
 			if (key != null) {
 				if (pressedTime.get(key) == -1) {
 					pressedTime.put(key, (int) System.currentTimeMillis());
-					for (SEntity o : keyboardSignals) {
-						if (o.getSignal().getType() == Signal.K_PRESSED && (o.getSignal().getKey() == key || o.getSignal().getKey() == null)) {
-							o.getAction().onSignal(new SKeyCtx(e, -1));
-						}
-					}
+					dispatch(Signal.K_PRESSED, key, new SKeyCtx(e, -1));
 				}
 				released.put(key, false);
 				change.put(key, true);
@@ -457,11 +448,7 @@ class Window {
 				missPressAvoider.get(key).stop();
 				if (!change.get(key)) {
 					int time = ((int) System.currentTimeMillis()) - pressedTime.get(key);
-					for (SEntity o : keyboardSignals) {
-						if (o.getSignal().getType() == Signal.M_RELEASED && (o.getSignal().getKey() == key || o.getSignal().getKey() == null)) {
-							o.getAction().onSignal(new SKeyCtx(ke, time));
-						}
-					}
+					dispatch(Signal.K_RELEASED, key, new SKeyCtx(ke, time));
 					pressedTime.put(key, -1);
 				}
 			}
@@ -568,9 +555,7 @@ class Window {
 		public void windowIconified(WindowEvent e) { }
 		public void windowOpened(WindowEvent e) { }
 		public void windowClosing(WindowEvent e) {
-			for (SEntity o : exitSignals) {
-				o.getAction().onSignal(null);
-			}
+			dispatch(Signal.W_EXIT, null, null);
 			System.exit(0);
 		}
 	}
@@ -1,13 +1,17 @@
 package s2D.windowEngine;
 
 import java.awt.*;
+import java.awt.image.*;
 import java.util.*;
+import s2D.metricsEngine.*;
 
 /**
  * The Window Manager.<br/>
  * It works with a double buffering method, and uses a "Gal Context" (GC) as a buffer.<br/>
  * It is possible to add elements to the GC, and to remove elements from the GC. It is also possible to clear the GC.<br/>
- * The update method applies the current GC to the window (and does NOT clear the GC).
+ * The publish method is called by the scene thread once per tick : it updates the changed elements and publishes what to redraw.<br/>
+ * The update method, called by the graphic thread, applies the last published frame to the window (and does NOT clear the GC).<br/>
+ * The frames are drawn on a render target : a window on the screen, or an offscreen image (see createOffscreen) which works without any display and whose pixels can be read back.
  * @author Guillaume Singland
  * @version 2.0
  */
@@ -21,8 +25,11 @@ public final class WindowManager {
 	
 	/////////////////////////////////////////////////
 	
-	private Window w;				// The window
+	private RenderTarget w;				// The render target
+	private Window window;				// The window on the screen (null if offscreen)
 	private GContext c;				// The graphic context
+	private volatile Boolean fullscreen;		// The fullscreen mode to apply at the next update (null if none)
+	private long lastUpdate;			// The time of the last update of the screen (in ns, 0 if none)
 	
 	/////////////////////////////////////////////////
 	
@@ -78,19 +85,57 @@ public final class WindowManager {
 		if (background == null) {
 			background = BACKGROUND;
 		}
-		w = new Window(width, height, title, icon, background);
+		window = new Window(width, height, title, icon, background);
+		w = window;
 		c = new GContext();
 	}
 	
 	/**
-	 * Add an element to the graphic context.
+	 * Build a Window Manager drawing on a render target.
+	 * @param target The render target
+	 */
+	private WindowManager(RenderTarget target) {
+		w = target;
+		c = new GContext();
+	}
+	
+	/**
+	 * Build a Window Manager drawing offscreen, on an image instead of a window.<br/>
+	 * It needs no display (it works with java.awt.headless=true), and runs the same pipeline as a window : it is meant for the tests and the benchmarks.
+	 * @param width The width of the image
+	 * @param height The height of the image
+	 * @param background The background color (can be null)
+	 */
+	public static WindowManager createOffscreen(int width, int height, Color background) {
+		if (width < 1 || height < 1) {
+			throw new IllegalArgumentException("The window size must be positive.");
+		}
+		if (background == null) {
+			background = BACKGROUND;
+		}
+		return new WindowManager(new OffscreenTarget(width, height, background));
+	}
+	
+	/**
+	 * Add an element to the graphic context, in the world : it is seen through the camera.
 	 * @param elt The elt to add
 	 */
 	public void add(GElement elt) {
 		if (elt == null) {
 			throw new IllegalArgumentException("Trying to add a null element to the GContext.");
 		}
-		c.add(elt);
+		c.add(elt, false);
+	}
+	
+	/**
+	 * Add an element to the graphic context, fixed on the screen : the camera doesn't move it (a HUD, a menu...).
+	 * @param elt The elt to add
+	 */
+	public void addFixed(GElement elt) {
+		if (elt == null) {
+			throw new IllegalArgumentException("Trying to add a null element to the GContext.");
+		}
+		c.add(elt, true);
 	}
 	
 	/**
@@ -112,48 +157,214 @@ public final class WindowManager {
 	}
 	
 	/**
-	 * Update the screen.<br/>
-	 * Does NOT clear the Gal Context.
+	 * Begin a batch of changes on all the elements : the elements changed during the batch notify their observers only once, at the end of the batch.<br/>
+	 * The batches can be nested, and have to be ended by the thread updating the scene, before it publishes.
+	 */
+	public void beginBatch() {
+		GElement.beginGlobalBatch();
+	}
+	
+	/**
+	 * End a batch of changes on all the elements.
+	 */
+	public void endBatch() {
+		GElement.endGlobalBatch();
+	}
+	
+	/**
+	 * Do some changes on the elements in a batch.
+	 * @param changes The changes
+	 */
+	public void batch(Runnable changes) {
+		beginBatch();
+		try {
+			changes.run();
+		} finally {
+			endBatch();
+		}
+	}
+	
+	/**
+	 * Move the camera : the elements in the world are seen from there from the next frame, without changing any of them.<br/>
+	 * The whole screen is then redrawn, unless the blit-scroll mode is on.
+	 * @param x The x position of the camera in the world (the world point shown at the top-left corner)
+	 * @param y The y position of the camera in the world
+	 */
+	public void setCamera(int x, int y) {
+		c.setCamera(x, y);
+	}
+	
+	/**
+	 * Get the x position of the camera in the world.
+	 */
+	public int getCameraX() {
+		return c.getCameraX();
+	}
+	
+	/**
+	 * Get the y position of the camera in the world.
+	 */
+	public int getCameraY() {
+		return c.getCameraY();
+	}
+	
+	/**
+	 * Set the blit-scroll mode : when the camera moves less than the size of the screen, the pixels already drawn are shifted,
+	 * and only the strips exposed (and the elements fixed on the screen) are redrawn. Drawing a scroll then costs the edge of the screen, not the whole screen ;
+	 * but all the pixels moved, so the whole screen is still presented.
+	 * @param blitScroll Whether the blit-scroll mode is on or not (off by default)
+	 */
+	public void setBlitScroll(boolean blitScroll) {
+		c.setBlitScroll(blitScroll);
+	}
+	
+	/**
+	 * Know whether the blit-scroll mode is on or not.
 	 */
-	public void update() {
-		if (c.update()) {
-			w.clear();
-			c.draw(w);
+	public boolean isBlitScroll() {
+		return c.isBlitScroll();
+	}
+	
+	/**
+	 * Bake the elements which stay unchanged in a static layer : the ones at the bottom of the display order (a background, a map...),
+	 * unchanged for some frames, are drawn once in one image, so that redrawing a region over them draws this image instead of each of them.
+	 * The layer is dropped as soon as one of them changes, and baked again once they stay unchanged for the same nb of frames.
+	 * @param frames The nb of frames an element has to stay unchanged to be baked (0 to never bake, the default)
+	 */
+	public void setBakeAfter(int frames) {
+		c.setBakeAfter(frames);
+	}
+	
+	/**
+	 * Get the nb of frames an element has to stay unchanged to be baked in the static layer (0 if never).
+	 */
+	public int getBakeAfter() {
+		return c.getBakeAfter();
+	}
+	
+	/**
+	 * Get the nb of elements currently baked in the static layer.
+	 */
+	public int getBakedCount() {
+		return c.getBakedCount();
+	}
+	
+	/**
+	 * Update the changed elements and publish the regions they damaged, so that the next update of the screen redraws them.<br/>
+	 * Is to be called by the scene thread, after each update of the scene.
+	 */
+	public void publish() {
+		long tic = Metrics.tic();
+		c.update();
+		Metrics.toc(Phase.CONTEXT_UPDATE, tic);
+		tic = Metrics.tic();
+		c.publish(w.getWidth(), w.getHeight());
+		Metrics.toc(Phase.CONTEXT_PUBLISH, tic);
+	}
+	
+	/**
+	 * Update the screen with the last published frame.<br/>
+	 * Only the regions damaged by the changed elements are redrawn.<br/>
+	 * Is to be called by the graphic thread. Does NOT clear the Gal Context.
+	 */
+	public synchronized void update() {
+		Boolean fullscreen = this.fullscreen;
+		if (fullscreen != null) {
+			this.fullscreen = null;
+			w.setFullscreen(fullscreen);
+			c.invalidate();
+		}
+		GFrame frame = c.take();
+		if (frame != null) {
+			long tic = Metrics.tic();
+			frame.draw(w);
+			Metrics.toc(Phase.CONTEXT_DRAW, tic);
+			tic = Metrics.tic();
 			w.update();
+			Metrics.toc(Phase.WINDOW_UPDATE, tic);
+			
+			long now = System.nanoTime();
+			if (lastUpdate != 0) {
+				Metrics.record(Phase.FRAME, now - lastUpdate);
+			}
+			lastUpdate = now;
 		}
 	}
 	
 	/**
-	 * Activate or deactivate the fullscreen mode.
+	 * Get a copy of what is displayed, as of the last update of the screen.
+	 */
+	public synchronized BufferedImage getSnapshot() {
+		return w.getSnapshot();
+	}
+	
+	/**
+	 * Get the color of a displayed pixel, as of the last update of the screen, in the default RGB model.
+	 * @param x The x position in the window
+	 * @param y The y position in the window
+	 */
+	public synchronized int getPixel(int x, int y) {
+		return w.getPixel(x, y);
+	}
+	
+	/**
+	 * Get the elements displayed under a point, from the one on top to the one at the bottom.
+	 * @param x The x position in the window
+	 * @param y The y position in the window
+	 */
+	public java.util.List<GElement> getElementsAt(int x, int y) {
+		return c.getElementsAt(x, y);
+	}
+	
+	/**
+	 * Activate or deactivate the fullscreen mode, at the next update of the screen.
 	 * @param fullscreen Whether the fullscreen mode is activated or not
 	 */
 	public void setFullscreen(boolean fullscreen) {
-		w.setFullscreen(fullscreen);
-		update();
+		this.fullscreen = fullscreen;
 	}
 	
 	/**
-	 * Add a signal listener.
+	 * Add a signal listener.<br/>
+	 * The listeners of a signal are called in the order they were added, whether they listen to its key or button or to any of them.
 	 * @param s The signal
 	 * @param l The listener
+	 * @return The handle of the registration, to remove it (null if offscreen)
 	 */
-	public void addListener(Signal s, SListener l) {
-		w.addListener(l, s);
+	public SEntity addListener(Signal s, SListener l) {
+		if (window != null) {
+			return window.addListener(l, s);
+		}
+		return null;
 	}
 	
 	/**
-	 * Remove a signal listener.
+	 * Remove a signal listener, for all the signals it was added for.
 	 * @param l The listener
 	 */
 	public void removeListener(SListener l) {
-		w.removeListener(l);
+		if (window != null) {
+			window.removeListener(l);
+		}
+	}
+	
+	/**
+	 * Remove a registration of a signal listener.
+	 * @param o The handle given when the listener was added (can be null)
+	 */
+	public void removeListener(SEntity o) {
+		if (window != null && o != null) {
+			window.removeListener(o);
+		}
 	}
 	
 	/**
 	 * Remove all signal listeners.
 	 */
 	public void removeAllListeners() {
-		w.removeAllListeners();
+		if (window != null) {
+			window.removeAllListeners();
+		}
 	}
 	
 	/**
@@ -161,11 +372,20 @@ public final class WindowManager {
 	 * @param cursor The new cursor (can be null)
 	 */
 	public void setCursor(Cursor cursor) {
-		w.setCursor(cursor);
+		if (window != null) {
+			window.setCursor(cursor);
+		}
 	}
 	
 	/////////////////////////////////////////////////
 	
+	/**
+	 * Know whether the frames are drawn offscreen, instead of on a window.
+	 */
+	public boolean isOffscreen() {
+		return window == null;
+	}
+	
 	/**
 	 * Get the X location of the left top corner of the window.
 	 */
@@ -193,4 +413,15 @@ public final class WindowManager {
 	public int getHeight() {
 		return w.getHeight();
 	}
+	
+	/**
+	 * Get the graphics configuration of the screen device where the window is : the images in its format are drawn without any conversion.
+	 * @return The graphics configuration (null if offscreen)
+	 */
+	public GraphicsConfiguration getGraphicsConfiguration() {
+		if (window != null) {
+			return window.getGraphicsConfiguration();
+		}
+		return null;
+	}
 }
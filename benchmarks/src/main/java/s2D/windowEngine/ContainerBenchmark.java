@@ -0,0 +1,78 @@
+package s2D.windowEngine;
+
+import java.awt.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks the recomposition of a GContainer, for some nb of children and some nesting depths.<br/>
+ * The children are in the deepest container, and each container holds the next one.
+ * @author Guillaume Singland
+ * @version 2.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class ContainerBenchmark {
+	
+	@Param({"10", "100", "1000"})
+	public int children;			// The nb of children
+	
+	@Param({"1", "4"})
+	public int depth;			// The nb of nested containers
+	
+	private GContainer root;		// The outer container
+	private GRectangle[] leaves;		// The children
+	private int turn;			// The nb of changes done
+	
+	/////////////////////////////////////////////////
+	
+	@Setup
+	public void setup() {
+		root = new GContainer(0, 0, 0);
+		GContainer parent = root;
+		for (int i = 1; i < depth; i++) {
+			GContainer c = new GContainer(4, 4, 0);
+			parent.add(c);
+			parent = c;
+		}
+		leaves = new GRectangle[children];
+		int columns = (int) Math.ceil(Math.sqrt(children));
+		for (int i = 0; i < children; i++) {
+			leaves[i] = new GRectangle((i % columns) * 10, (i / columns) * 10, i % 3, 8, 8, Color.RED);
+			parent.add(leaves[i]);
+		}
+		root.imageUpdate();
+	}
+	
+	@TearDown
+	public void tearDown() {
+		GSurfacePool.clear();
+	}
+	
+	/////////////////////////////////////////////////
+	
+	@Benchmark
+	public Image changeOne() {
+		turn++;
+		leaves[turn % children].setColor((turn % 2 == 0) ? Color.RED : Color.BLUE);
+		root.imageUpdate();
+		GSurfacePool.recycle(GSurfacePool.retire());
+		return root.getImage();
+	}
+	
+	@Benchmark
+	public Image changeAll() {
+		turn++;
+		Color color = (turn % 2 == 0) ? Color.RED : Color.BLUE;
+		for (GRectangle leaf : leaves) {
+			leaf.setColor(color);
+		}
+		root.imageUpdate();
+		GSurfacePool.recycle(GSurfacePool.retire());
+		return root.getImage();
+	}
+}
@@ -0,0 +1,86 @@
+package s2D.windowEngine;
+
+import java.awt.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks a whole frame of the pipeline, on an offscreen Window Manager : the update of the changed sprites, the publication and the drawing of the frame.
+ * @author Guillaume Singland
+ * @version 2.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class ContextBenchmark {
+	
+	private final static int WIDTH = 640;		// The width of the window
+	private final static int HEIGHT = 480;		// The height of the window
+	
+	@Param({"100", "1000", "10000"})
+	public int sprites;			// The nb of sprites
+	
+	private WindowManager wm;		// The window manager
+	private GSubImage[] list;		// The sprites
+	private int turn;			// The nb of frames done
+	
+	/////////////////////////////////////////////////
+	
+	@Setup
+	public void setup() {
+		wm = WindowManager.createOffscreen(WIDTH, HEIGHT, Color.BLACK);
+		list = new GSubImage[sprites];
+		for (int i = 0; i < sprites; i++) {
+			list[i] = new GSubImage("testAnim.png", (i * 37) % (WIDTH - 32), (i * 53) % (HEIGHT - 32), i % 8, 0, 0, 32, 32);
+			wm.add(list[i]);
+		}
+		wm.publish();
+		wm.update();
+	}
+	
+	@TearDown
+	public void tearDown() {
+		wm.clear();
+		GSurfacePool.clear();
+	}
+	
+	/////////////////////////////////////////////////
+	
+	@Benchmark
+	public void idle() {
+		wm.publish();
+		wm.update();
+	}
+	
+	@Benchmark
+	public void moveTenth() {
+		turn++;
+		for (int i = turn % 10; i < sprites; i += 10) {
+			move(list[i]);
+		}
+		wm.publish();
+		wm.update();
+	}
+	
+	@Benchmark
+	public void moveAll() {
+		turn++;
+		for (GSubImage sprite : list) {
+			move(sprite);
+		}
+		wm.publish();
+		wm.update();
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Move a sprite a little, back and forth.
+	 */
+	private void move(GSubImage sprite) {
+		sprite.setX(sprite.getX() + ((turn % 2 == 0) ? 1 : -1));
+	}
+}
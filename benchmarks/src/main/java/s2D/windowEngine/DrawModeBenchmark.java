@@ -0,0 +1,70 @@
+package s2D.windowEngine;
+
+import java.awt.*;
+import java.awt.image.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks the drawing of a shape in immediate mode against the blit of its cached image, when it changes at every frame or never.
+ * @author Guillaume Singland
+ * @version 2.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class DrawModeBenchmark {
+	
+	@Param({"RECTANGLE", "OVAL", "POLYGON"})
+	public String shape;			// The type of shape
+	
+	@Param({"32", "256"})
+	public int size;			// The size of the shape (in pixels)
+	
+	@Param({"false", "true"})
+	public boolean immediate;		// Whether the shape is in immediate mode
+	
+	private GShape elt;			// The shape
+	private BufferedImage target;		// Where the shape is drawn
+	private Graphics2D g;			// The graphics of the target
+	private boolean toggle;			// The last color change
+	
+	/////////////////////////////////////////////////
+	
+	@Setup
+	public void setup() {
+		elt = ShapeBenchmark.createShape(shape, size);
+		elt.setImmediate(immediate);
+		elt.imageUpdate();
+		target = new BufferedImage(size + 1, size + 1, BufferedImage.TYPE_INT_RGB);
+		g = target.createGraphics();
+	}
+	
+	@TearDown
+	public void tearDown() {
+		g.dispose();
+		GSurfacePool.clear();
+	}
+	
+	/////////////////////////////////////////////////
+	
+	@Benchmark
+	public BufferedImage drawUnchanged() {
+		elt.imageUpdate();
+		elt.draw(g, 0, 0);
+		return target;
+	}
+	
+	@Benchmark
+	public BufferedImage drawChanged() {
+		toggle = !toggle;
+		elt.setColor(toggle ? Color.BLUE : Color.RED);
+		elt.imageUpdate();
+		elt.draw(g, 0, 0);
+		GSurfacePool.recycle(GSurfacePool.retire());
+		return target;
+	}
+}
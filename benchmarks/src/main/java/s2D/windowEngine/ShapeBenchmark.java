@@ -0,0 +1,74 @@
+package s2D.windowEngine;
+
+import java.awt.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks the rasterization of each type of shape (GShape.update).
+ * @author Guillaume Singland
+ * @version 2.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class ShapeBenchmark {
+	
+	@Param({"RECTANGLE", "ROUNDED_RECTANGLE", "OVAL", "ARC", "POLYGON", "LINE"})
+	public String shape;			// The type of shape
+	
+	@Param({"32", "256"})
+	public int size;			// The size of the shape (in pixels)
+	
+	private GShape elt;			// The shape
+	
+	/////////////////////////////////////////////////
+	
+	@Setup
+	public void setup() {
+		elt = createShape(shape, size);
+	}
+	
+	@TearDown
+	public void tearDown() {
+		GSurfacePool.clear();
+	}
+	
+	/////////////////////////////////////////////////
+	
+	@Benchmark
+	public Image update() {
+		elt.update();
+		GSurfacePool.recycle(GSurfacePool.retire());
+		return elt.getImage();
+	}
+	
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Build a shape.
+	 * @param shape The type of shape
+	 * @param size The size of the shape
+	 */
+	static GShape createShape(String shape, int size) {
+		switch (shape) {
+			case "RECTANGLE" :
+				return new GRectangle(0, 0, 0, size, size, Color.RED);
+			case "ROUNDED_RECTANGLE" :
+				return new GRoundedRectangle(0, 0, 0, size, size, size / 4, Color.RED);
+			case "OVAL" :
+				return new GOval(false, 0, 0, 0, size / 2, size / 2, Color.RED);
+			case "ARC" :
+				return new GArc(false, 0, 0, 0, size / 2, size / 2, 30, 270, Color.RED);
+			case "POLYGON" :
+				return new GPolygon(0, Color.RED, new Point(size / 2, 0), new Point(size, size), new Point(0, size / 2), new Point(size / 3, size / 4));
+			case "LINE" :
+				return new GLine(0, 0, size, size, 0, Color.RED);
+			default :
+				throw new IllegalArgumentException("Unknown shape " + shape + ".");
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package s2D.windowEngine;
+
+import java.awt.*;
+import java.awt.image.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks the playing of many GSprites on a shared sprite sheet, and the frames drawing them offscreen.
+ * @author Guillaume Singland
+ * @version 2.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class SpriteBenchmark {
+	
+	private final static int FRAME_SIZE = 32;	// The size of a frame of the sprite sheet
+	private final static int FRAMES = 8;		// The nb of frames of the sprite sheet
+	private final static long TICK = 16666667;	// The time elapsed between two frames (in ns)
+	
+	@Param({"100", "500"})
+	public int sprites;			// The nb of sprites
+	
+	private WindowManager window;		// The offscreen window
+	private GSprite[] elts;			// The sprites
+	private long time;			// The time of the clock
+	
+	/////////////////////////////////////////////////
+	
+	@Setup
+	public void setup() {
+		BufferedImage image = new BufferedImage(FRAME_SIZE * FRAMES, FRAME_SIZE, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
+		for (int i = 0; i < FRAMES; i++) {
+			g.setColor(Color.getHSBColor((float) i / FRAMES, 1, 1));
+			g.fillOval(i * FRAME_SIZE, 0, FRAME_SIZE, FRAME_SIZE);
+		}
+		g.dispose();
+		GSpriteSheet sheet = new GSpriteSheet(image, FRAME_SIZE, FRAME_SIZE);
+		
+		window = WindowManager.createOffscreen(640, 480, Color.BLACK);
+		elts = new GSprite[sprites];
+		for (int i = 0; i < sprites; i++) {
+			elts[i] = new GSprite(sheet, (i * 37) % 608, (i * 53) % 448, 1, true);
+			elts[i].addFrames(0, FRAMES - 1, 50 + i % 7 * 10);
+			elts[i].start(0);
+			window.add(elts[i]);
+		}
+		window.publish();
+		window.update();
+	}
+	
+	@TearDown
+	public void tearDown() {
+		GSurfacePool.clear();
+	}
+	
+	/////////////////////////////////////////////////
+	
+	@Benchmark
+	public long advance() {
+		time += TICK;
+		for (GSprite elt : elts) {
+			elt.setTime(time);
+		}
+		return time;
+	}
+	
+	@Benchmark
+	public WindowManager frame() {
+		advance();
+		window.publish();
+		window.update();
+		return window;
+	}
+}
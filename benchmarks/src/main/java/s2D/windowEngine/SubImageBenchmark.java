@@ -0,0 +1,62 @@
+package s2D.windowEngine;
+
+import java.awt.*;
+import java.awt.image.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks the frame switching of a GSubImage on a sprite sheet, and its drawing.
+ * @author Guillaume Singland
+ * @version 2.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class SubImageBenchmark {
+	
+	private final static int FRAME_SIZE = 32;	// The size of a frame of the sprite sheet
+	private final static int COLUMNS = 3;		// The nb of columns of the sprite sheet
+	private final static int ROWS = 4;		// The nb of rows of the sprite sheet
+	
+	@Param({"true", "false"})
+	public boolean immediate;		// Whether the sub image is in immediate mode
+	
+	private GSubImage elt;			// The sub image
+	private BufferedImage target;		// Where the sub image is drawn
+	private Graphics2D g;			// The graphics of the target
+	private int frame;			// The current frame
+	
+	/////////////////////////////////////////////////
+	
+	@Setup
+	public void setup() {
+		elt = new GSubImage("testAnim.png", 0, 0, 0, 0, 0, FRAME_SIZE, FRAME_SIZE);
+		elt.setImmediate(immediate);
+		elt.imageUpdate();
+		target = new BufferedImage(FRAME_SIZE, FRAME_SIZE, BufferedImage.TYPE_INT_RGB);
+		g = target.createGraphics();
+	}
+	
+	@TearDown
+	public void tearDown() {
+		g.dispose();
+		GSurfacePool.clear();
+	}
+	
+	/////////////////////////////////////////////////
+	
+	@Benchmark
+	public BufferedImage switchFrame() {
+		frame = (frame + 1) % (COLUMNS * ROWS);
+		elt.setPortionX((frame % COLUMNS) * FRAME_SIZE);
+		elt.setPortionY((frame / COLUMNS) * FRAME_SIZE);
+		elt.imageUpdate();
+		elt.draw(g, 0, 0);
+		GSurfacePool.recycle(GSurfacePool.retire());
+		return target;
+	}
+}
@@ -0,0 +1,61 @@
+package s2D.windowEngine;
+
+import java.awt.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks the measurement and the rendering of a GText.
+ * @author Guillaume Singland
+ * @version 2.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class TextBenchmark {
+	
+	@Param({"8", "64"})
+	public int length;			// The nb of characters of the text
+	
+	private GText elt;			// The text
+	private String[] texts;			// Two texts of the given length, set in turn
+	private int turn;			// The index of the next text to set
+	
+	/////////////////////////////////////////////////
+	
+	@Setup
+	public void setup() {
+		StringBuilder a = new StringBuilder();
+		StringBuilder b = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			a.append((char) ('a' + i % 26));
+			b.append((char) ('A' + i % 26));
+		}
+		texts = new String[] {a.toString(), b.toString()};
+		elt = new GText(0, 0, 0, texts[0], Color.WHITE, new Font("SERIF", Font.PLAIN, 20));
+	}
+	
+	@TearDown
+	public void tearDown() {
+		GSurfacePool.clear();
+	}
+	
+	/////////////////////////////////////////////////
+	
+	@Benchmark
+	public int measure() {
+		turn = 1 - turn;
+		elt.setText(texts[turn]);
+		return elt.getWidth();
+	}
+	
+	@Benchmark
+	public Image render() {
+		elt.update();
+		GSurfacePool.recycle(GSurfacePool.retire());
+		return elt.getImage();
+	}
+}